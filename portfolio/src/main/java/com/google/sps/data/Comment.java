@@ -15,4 +15,12 @@ public class Comment {
         this.id = id;
         this.timestamp = timestamp;
     }
+
+    public long getId() {
+        return id;
+    }
+
+    public long getTimestamp() {
+        return timestamp;
+    }
 }
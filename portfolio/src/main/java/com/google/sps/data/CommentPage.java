@@ -0,0 +1,18 @@
+package com.google.sps.data;
+
+import java.util.List;
+
+/*
+ * CommentPage holds one page of comments returned by /data, newest first,
+ * along with an opaque cursor to pass back to fetch the page after it. The
+ * cursor is null once there are no more comments.
+ */
+public class CommentPage {
+    private List<Comment> comments;
+    private String cursor;
+
+    public CommentPage(List<Comment> comments, String cursor) {
+        this.comments = comments;
+        this.cursor = cursor;
+    }
+}
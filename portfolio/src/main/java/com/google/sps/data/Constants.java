@@ -5,4 +5,11 @@ public class Constants {
     public static final String COMMENTS_PROPERTY = "comment";
     public static final String COMMENTS_LIMIT = "limit";
     public static final String COMMENTS_TIMESTAMP = "timestamp";
+    public static final String COMMENTS_CURSOR = "cursor";
+    public static final String COMMENTS_ID = "id";
+    public static final String COMMENTS_BEFORE = "before";
+    /* Most entities Datastore puts or deletes in one call. */
+    public static final int DATASTORE_BATCH_SIZE = 500;
+    /* Most comments or IDs one bulk request may give. */
+    public static final int BULK_MAX_VALUES = 5000;
 }
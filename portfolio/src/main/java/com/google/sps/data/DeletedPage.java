@@ -0,0 +1,19 @@
+package com.google.sps.data;
+
+import java.util.List;
+
+/*
+ * DeletedPage holds the IDs of the comments one call to /bulk-delete-data
+ * deleted, along with an opaque cursor to pass back, with the same before
+ * timestamp, to delete the ones after them. The cursor is null once there
+ * are no more comments to delete.
+ */
+public class DeletedPage {
+    private List<Long> deleted;
+    private String cursor;
+
+    public DeletedPage(List<Long> deleted, String cursor) {
+        this.deleted = deleted;
+        this.cursor = cursor;
+    }
+}
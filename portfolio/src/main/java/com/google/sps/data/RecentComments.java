@@ -0,0 +1,216 @@
+package com.google.sps.data;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.SortDirection;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.google.gson.Gson;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/*
+ * RecentComments keeps the newest comments in memory, newest first, so the
+ * first page of comments can be served without a Datastore round trip. It is
+ * filled from Datastore on first use and then updated in place as comments
+ * are added and deleted. First pages are kept rendered as JSON until the
+ * comments change, so serving one again costs nothing but writing out its
+ * bytes. Each comment is stored with the Datastore cursor
+ * that follows it, so a page served from memory still comes with a cursor
+ * that later pages can be fetched from Datastore with.
+ *
+ * Every server instance has its own copy, which does not see comments added
+ * or deleted through other instances. To bound how stale it can get, the
+ * copy is reloaded once it is older than MAX_AGE_MILLIS. Methods are
+ * synchronized, so a single instance can be shared by all requests, but the
+ * Datastore query of a reload runs without the lock so other requests are not
+ * held up by it.
+ */
+public class RecentComments {
+    private static final long MAX_AGE_MILLIS = 60 * 1000;
+    private static final Gson GSON = new Gson();
+
+    private final int capacity;
+    private final List<Comment> comments = new ArrayList<>();
+    /* The cursor following each comment, or null for comments added since the last load. */
+    private final List<Cursor> cursors = new ArrayList<>();
+    private boolean loaded = false;
+    private long loadedAt;
+    /* True when the list holds every comment there is, not just the newest ones. */
+    private boolean complete;
+    /* First pages rendered since the comments last changed, by limit. */
+    private final Map<Integer, RenderedPage> renderedPages = new HashMap<>();
+    /* Counts adds and removes, so a reload can tell whether it missed any. */
+    private long changes;
+
+    public RecentComments(int capacity) {
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    /*
+     * Returns the first page of at most limit comments, rendered as JSON,
+     * loading the newest comments from Datastore first if they are not in
+     * memory or are too old. Pages are rendered once and then reused until
+     * the comments change. Returns null if the page cannot be served from
+     * memory, because limit is larger than what is kept, or because comments
+     * were added or deleted while the newest ones were being loaded.
+     */
+    public RenderedPage getFirstPage(int limit, DatastoreService datastore) {
+        if (limit > capacity) {
+            return null;
+        }
+        long seen;
+        synchronized (this) {
+            if (loaded && System.currentTimeMillis() - loadedAt < MAX_AGE_MILLIS) {
+                RenderedPage rendered = render(limit);
+                if (rendered != null) {
+                    return rendered;
+                }
+            }
+            seen = changes;
+        }
+        Loaded fresh = load(datastore);
+        synchronized (this) {
+            if (changes != seen) {
+                /* The results may or may not show those changes, so they cannot be used. */
+                return null;
+            }
+            comments.clear();
+            comments.addAll(fresh.comments);
+            cursors.clear();
+            cursors.addAll(fresh.cursors);
+            renderedPages.clear();
+            complete = comments.size() < capacity;
+            loaded = true;
+            loadedAt = System.currentTimeMillis();
+            return render(limit);
+        }
+    }
+
+    /*
+     * Adds a comment that was just stored in Datastore to the ones in memory,
+     * unless it is there already because a reload found it first.
+     */
+    public synchronized void add(Comment comment) {
+        changes++;
+        if (!loaded) {
+            return;
+        }
+        for (Comment known : comments) {
+            if (known.getId() == comment.getId()) {
+                return;
+            }
+        }
+        int index = 0;
+        while (index < comments.size() && comments.get(index).getTimestamp() >= comment.getTimestamp()) {
+            index++;
+        }
+        comments.add(index, comment);
+        cursors.add(index, null);
+        renderedPages.clear();
+        if (comments.size() > capacity) {
+            comments.remove(capacity);
+            cursors.remove(capacity);
+            complete = false;
+        }
+    }
+
+    /*
+     * Removes the comment with the given ID, if it is in memory.
+     */
+    public synchronized void remove(long id) {
+        changes++;
+        for (int i = 0; i < comments.size(); i++) {
+            if (comments.get(i).getId() == id) {
+                comments.remove(i);
+                cursors.remove(i);
+                renderedPages.clear();
+                return;
+            }
+        }
+    }
+
+    /*
+     * Removes the comments older than the given timestamp that are in memory.
+     */
+    public synchronized void removeBefore(long timestamp) {
+        changes++;
+        for (int i = comments.size() - 1; i >= 0 && comments.get(i).getTimestamp() < timestamp; i--) {
+            comments.remove(i);
+            cursors.remove(i);
+            renderedPages.clear();
+        }
+    }
+
+    /*
+     * Returns the first page of limit comments rendered as JSON, rendering
+     * it if it was not already, or null if it cannot be served from memory.
+     */
+    private RenderedPage render(int limit) {
+        RenderedPage rendered = renderedPages.get(limit);
+        if (rendered == null) {
+            CommentPage page = pageOf(limit);
+            if (page == null) {
+                return null;
+            }
+            rendered = new RenderedPage(GSON.toJson(page));
+            renderedPages.put(limit, rendered);
+        }
+        return rendered;
+    }
+
+    /*
+     * Returns the first limit comments and the cursor after them, or null if
+     * the comments in memory are not enough to tell.
+     */
+    private CommentPage pageOf(int limit) {
+        int size = Math.min(limit, comments.size());
+        if (size < limit && !complete) {
+            /* Comments were deleted, and the ones after them are not known. */
+            return null;
+        }
+        List<Comment> page = new ArrayList<>(comments.subList(0, size));
+        if (size == 0 || (size == comments.size() && complete)) {
+            return new CommentPage(page, null);
+        }
+        Cursor next = cursors.get(size - 1);
+        if (next == null) {
+            return null;
+        }
+        return new CommentPage(page, next.toWebSafeString());
+    }
+
+    /*
+     * Reads the newest comments in Datastore, with the cursor after each of
+     * them. Touches no fields, so it can run without the lock.
+     */
+    private Loaded load(DatastoreService datastore) {
+        Query query = new Query(Constants.COMMENTS_KIND).addSort(Constants.COMMENTS_TIMESTAMP, SortDirection.DESCENDING);
+        QueryResultIterator<Entity> results =
+            datastore.prepare(query).asQueryResultIterator(FetchOptions.Builder.withLimit(capacity));
+        Loaded loaded = new Loaded();
+        while (results.hasNext()) {
+            Entity entity = results.next();
+            String line = (String)entity.getProperty(Constants.COMMENTS_PROPERTY);
+            long id = (long)entity.getKey().getId();
+            long timestamp = (long)entity.getProperty(Constants.COMMENTS_TIMESTAMP);
+            loaded.comments.add(new Comment(id, line, timestamp));
+            loaded.cursors.add(results.getCursor());
+        }
+        return loaded;
+    }
+
+    /* The newest comments in Datastore and the cursor after each, as read by load. */
+    private static class Loaded {
+        final List<Comment> comments = new ArrayList<>();
+        final List<Cursor> cursors = new ArrayList<>();
+    }
+}
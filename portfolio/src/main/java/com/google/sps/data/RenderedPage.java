@@ -0,0 +1,63 @@
+package com.google.sps.data;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Arrays;
+import java.util.Base64;
+
+/*
+ * RenderedPage holds a page of comments already serialized to UTF-8 JSON,
+ * so it can be written to any number of responses without serializing it
+ * again, together with a strong ETag derived from the bytes. Since the tag
+ * only depends on the content, every server instance gives the same page
+ * the same tag.
+ */
+public class RenderedPage {
+    private static final int ETAG_BYTES = 16;
+
+    private final byte[] json;
+    private final String etag;
+
+    public RenderedPage(String json) {
+        this.json = json.getBytes(StandardCharsets.UTF_8);
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(this.json);
+            byte[] prefix = Arrays.copyOf(digest, ETAG_BYTES);
+            this.etag = "\"" + Base64.getUrlEncoder().withoutPadding().encodeToString(prefix) + "\"";
+        } catch (NoSuchAlgorithmException e) {
+            /* Every Java platform is required to support SHA-256. */
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /* The JSON, which must not be modified. */
+    public byte[] getJson() {
+        return json;
+    }
+
+    public String getETag() {
+        return etag;
+    }
+
+    /*
+     * Returns whether an If-None-Match header value names this page, so the
+     * client's copy is current. The header may list several tags, weak ones
+     * included, or be "*".
+     */
+    public boolean matches(String ifNoneMatch) {
+        if (ifNoneMatch == null) {
+            return false;
+        }
+        for (String tag : ifNoneMatch.split(",")) {
+            tag = tag.trim();
+            if (tag.startsWith("W/")) {
+                tag = tag.substring(2);
+            }
+            if (tag.equals("*") || tag.equals(etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,80 @@
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
+import com.google.gson.Gson;
+import com.google.sps.data.Comment;
+import com.google.sps.data.Constants;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+ * Adds many comments at once. Every "comment" parameter becomes a comment,
+ * and they are stored with one Datastore put per DATASTORE_BATCH_SIZE
+ * comments instead of one per comment. The batches are sent at the same
+ * time, and the request thread is released until they are all done. Returns
+ * the IDs of the new comments in JSON form, in the order the comments were
+ * given. At most BULK_MAX_VALUES comments can be given at once.
+ *
+ * The comments get timestamps one millisecond apart, the last one now, as if
+ * they had been posted one after the other in the order given. They then
+ * come back in a fixed order, which a shared timestamp would not guarantee.
+ */
+@WebServlet(value = "/bulk-data", asyncSupported = true)
+public class BulkDataServlet extends HttpServlet {
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String[] lines = request.getParameterValues(Constants.COMMENTS_PROPERTY);
+        if (lines == null) {
+            lines = new String[0];
+        }
+        if (lines.length > Constants.BULK_MAX_VALUES) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Too many comments.");
+            return;
+        }
+
+        long firstTimestamp = System.currentTimeMillis() - Math.max(lines.length - 1, 0);
+        AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+        List<Future<List<Key>>> puts = new ArrayList<>();
+        List<Entity> batch = new ArrayList<>();
+        for (int i = 0; i < lines.length; i++) {
+            Entity taskEntity = new Entity(Constants.COMMENTS_KIND);
+            taskEntity.setProperty(Constants.COMMENTS_PROPERTY, lines[i]);
+            taskEntity.setProperty(Constants.COMMENTS_TIMESTAMP, firstTimestamp + i);
+            batch.add(taskEntity);
+            if (batch.size() == Constants.DATASTORE_BATCH_SIZE || i == lines.length - 1) {
+                puts.add(datastore.put(batch));
+                batch = new ArrayList<>();
+            }
+        }
+
+        String[] comments = lines;
+        AsyncContext async = request.startAsync();
+        DatastoreFutures.whenDone(async, puts, () -> {
+            List<Long> ids = new ArrayList<>();
+            for (Future<List<Key>> put : puts) {
+                for (Key key : put.get()) {
+                    ids.add(key.getId());
+                }
+            }
+            for (int i = 0; i < comments.length; i++) {
+                DataServlet.RECENT_COMMENTS.add(new Comment(ids.get(i), comments[i], firstTimestamp + i));
+            }
+
+            HttpServletResponse asyncResponse = (HttpServletResponse) async.getResponse();
+            asyncResponse.setContentType("application/json;");
+            asyncResponse.getWriter().println(GSON.toJson(ids));
+        });
+    }
+}
@@ -0,0 +1,158 @@
+package com.google.sps.servlets;
+
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
+import com.google.appengine.api.datastore.KeyFactory;
+import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.Query.FilterOperator;
+import com.google.appengine.api.datastore.Query.FilterPredicate;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.google.gson.Gson;
+import com.google.sps.data.Constants;
+import com.google.sps.data.DeletedPage;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/*
+ * Deletes many comments at once, either every comment named by an "id"
+ * parameter or, given a "before" timestamp, every comment older than it.
+ * Comments are deleted with one Datastore delete per DATASTORE_BATCH_SIZE
+ * comments instead of one request per comment. The deletes are sent as the
+ * keys come in, without waiting for each other, and the request thread is
+ * released until they are all done. Looking up the keys older than a cutoff
+ * is a query, which still runs on the request thread. At most
+ * BULK_MAX_VALUES comments are deleted per call, so no more than
+ * BULK_MAX_VALUES / DATASTORE_BATCH_SIZE deletes are ever in flight for one
+ * request: more IDs than that get a 400, and a cutoff that matches more
+ * comments deletes the oldest BULK_MAX_VALUES of them and returns a cursor.
+ * Posting the same before timestamp again with that cursor deletes the next
+ * ones. Returns a DeletedPage in JSON form.
+ *
+ * Given IDs are deleted without looking them up first, as Datastore deletes
+ * of missing keys succeed, so for them the response echoes the IDs that were
+ * asked for, including any that did not exist. Given a cutoff, it lists only
+ * the comments the query found.
+ */
+@WebServlet(value = "/bulk-delete-data", asyncSupported = true)
+public class BulkDeleteDataServlet extends HttpServlet {
+    private static final Gson GSON = new Gson();
+
+    @Override
+    public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        String[] idValues = request.getParameterValues(Constants.COMMENTS_ID);
+        String before = request.getParameter(Constants.COMMENTS_BEFORE);
+        if ((idValues == null) == (before == null)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Give either ids or a before timestamp.");
+            return;
+        }
+        if (idValues != null && idValues.length > Constants.BULK_MAX_VALUES) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Too many ids.");
+            return;
+        }
+
+        List<Key> keys = new ArrayList<>();
+        long cutoff = 0;
+        FetchOptions fetchOptions =
+            FetchOptions.Builder.withChunkSize(Constants.DATASTORE_BATCH_SIZE).limit(Constants.BULK_MAX_VALUES);
+        try {
+            if (idValues != null) {
+                for (String idValue : idValues) {
+                    keys.add(KeyFactory.createKey(Constants.COMMENTS_KIND, Long.parseLong(idValue)));
+                }
+            } else {
+                cutoff = Long.parseLong(before);
+                String startCursor = request.getParameter(Constants.COMMENTS_CURSOR);
+                if (startCursor != null && !startCursor.isEmpty()) {
+                    fetchOptions.startCursor(Cursor.fromWebSafeString(startCursor));
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            /* Also catches NumberFormatException. */
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid id, timestamp or cursor.");
+            return;
+        }
+
+        AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+        List<Key> batch = new ArrayList<>();
+        List<List<Key>> batches = new ArrayList<>();
+        List<Future<Void>> deletes = new ArrayList<>();
+        String nextCursor = null;
+        if (idValues != null) {
+            for (Key key : keys) {
+                batch.add(key);
+                batch = deleteIfFull(datastore, batch, batches, deletes);
+            }
+        } else {
+            /* Only the keys are needed, and they come back in batches of the same size. */
+            Query query = new Query(Constants.COMMENTS_KIND)
+                .setFilter(new FilterPredicate(Constants.COMMENTS_TIMESTAMP, FilterOperator.LESS_THAN, cutoff))
+                .setKeysOnly();
+            QueryResultIterator<Entity> results = datastore.prepare(query).asQueryResultIterator(fetchOptions);
+            int found = 0;
+            while (results.hasNext()) {
+                batch.add(results.next().getKey());
+                batch = deleteIfFull(datastore, batch, batches, deletes);
+                found++;
+            }
+            /* A short page means there is nothing after it. */
+            if (found == Constants.BULK_MAX_VALUES) {
+                nextCursor = results.getCursor().toWebSafeString();
+            }
+        }
+        if (!batch.isEmpty()) {
+            batches.add(batch);
+            deletes.add(datastore.delete(batch));
+        }
+
+        boolean allBeforeCutoff = idValues == null && nextCursor == null;
+        long deletedBefore = cutoff;
+        String cursor = nextCursor;
+        AsyncContext async = request.startAsync();
+        DatastoreFutures.whenDone(async, deletes, () -> {
+            List<Long> deleted = new ArrayList<>();
+            for (int i = 0; i < deletes.size(); i++) {
+                deletes.get(i).get();
+                for (Key key : batches.get(i)) {
+                    deleted.add(key.getId());
+                }
+            }
+            /* Until the last page, comments before the cutoff are still left in Datastore. */
+            if (allBeforeCutoff) {
+                DataServlet.RECENT_COMMENTS.removeBefore(deletedBefore);
+            } else {
+                for (long id : deleted) {
+                    DataServlet.RECENT_COMMENTS.remove(id);
+                }
+            }
+
+            HttpServletResponse asyncResponse = (HttpServletResponse) async.getResponse();
+            asyncResponse.setContentType("application/json;");
+            asyncResponse.getWriter().println(GSON.toJson(new DeletedPage(deleted, cursor)));
+        });
+    }
+
+    /*
+     * Starts deleting the keys in batch once it holds a full batch, and
+     * returns the batch to add the next keys to.
+     */
+    private static List<Key> deleteIfFull(
+            AsyncDatastoreService datastore, List<Key> batch, List<List<Key>> batches, List<Future<Void>> deletes) {
+        if (batch.size() < Constants.DATASTORE_BATCH_SIZE) {
+            return batch;
+        }
+        batches.add(batch);
+        deletes.add(datastore.delete(batch));
+        return new ArrayList<>();
+    }
+}
@@ -14,16 +14,26 @@
 
 package com.google.sps.servlets;
 
+import com.google.appengine.api.datastore.AsyncDatastoreService;
+import com.google.appengine.api.datastore.Cursor;
 import com.google.appengine.api.datastore.DatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.FetchOptions;
+import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.PreparedQuery;
 import com.google.appengine.api.datastore.Query;
+import com.google.appengine.api.datastore.QueryResultList;
 import com.google.sps.data.Constants;
 import com.google.appengine.api.datastore.Query.SortDirection;
 import com.google.gson.Gson;
 import com.google.sps.data.Comment;
+import com.google.sps.data.CommentPage;
+import com.google.sps.data.RecentComments;
+import com.google.sps.data.RenderedPage;
 import java.io.IOException;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -32,27 +42,72 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
-@WebServlet("/data")
+@WebServlet(value = "/data", asyncSupported = true)
 public class DataServlet extends HttpServlet {
+    /* Number of newest comments kept in memory, see RecentComments. */
+    private static final int RECENT_COMMENTS_CAPACITY = 50;
+    static final RecentComments RECENT_COMMENTS = new RecentComments(RECENT_COMMENTS_CAPACITY);
+    private static final Gson GSON = new Gson();
+
     /* 
-     * Retrieves comments from Datastore and adds HTML elements to DOM.
-     * Returns comments to client in JSON form. 
+     * Retrieves one page of comments from Datastore, newest first, and returns
+     * them to the client in JSON form along with a cursor for the next page.
+     * The limit is passed to Datastore and the page starts at the cursor given
+     * by the client, if any, so later pages cost the same as the first one.
+     * First pages no longer than RECENT_COMMENTS_CAPACITY are served from
+     * memory as pre-rendered JSON with an ETag, and a client that already has
+     * the current page gets a 304 without anything being read or serialized.
+     * A limit that is missing, not a number or negative gets a 400.
      */
     @Override
     public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {        
-        int limit = Integer.parseInt(request.getParameter(Constants.COMMENTS_LIMIT));
-        Query query = new Query(Constants.COMMENTS_KIND).addSort(Constants.COMMENTS_TIMESTAMP, SortDirection.DESCENDING);
+        int limit;
+        try {
+            limit = Integer.parseInt(request.getParameter(Constants.COMMENTS_LIMIT));
+        } catch (NumberFormatException e) {
+            limit = -1;
+        }
+        if (limit < 0) {
+            /* Missing, not a number, or negative, which Datastore would throw on. */
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid limit.");
+            return;
+        }
+        String startCursor = request.getParameter(Constants.COMMENTS_CURSOR);
         DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
+        if (startCursor == null || startCursor.isEmpty()) {
+            RenderedPage recent = RECENT_COMMENTS.getFirstPage(limit, datastore);
+            if (recent != null) {
+                /* Clients may keep the page, but have to check it is still current. */
+                response.setHeader("ETag", recent.getETag());
+                response.setHeader("Cache-Control", "no-cache");
+                if (recent.matches(request.getHeader("If-None-Match"))) {
+                    response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                    return;
+                }
+                byte[] json = recent.getJson();
+                response.setContentType("application/json; charset=UTF-8");
+                response.setContentLength(json.length);
+                response.getOutputStream().write(json);
+                return;
+            }
+        }
+
+        Query query = new Query(Constants.COMMENTS_KIND).addSort(Constants.COMMENTS_TIMESTAMP, SortDirection.DESCENDING);
         PreparedQuery results = datastore.prepare(query);
 
+        FetchOptions fetchOptions = FetchOptions.Builder.withLimit(limit);
+        if (startCursor != null && !startCursor.isEmpty()) {
+            try {
+                fetchOptions.startCursor(Cursor.fromWebSafeString(startCursor));
+            } catch (IllegalArgumentException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid cursor.");
+                return;
+            }
+        }
+        QueryResultList<Entity> page = results.asQueryResultList(fetchOptions);
+
         List<Comment> comments = new ArrayList<>();
-        int counter = 0;
-        for (Entity entity : results.asIterable()) {
-            /* Only return the number of comments as specified in query. */
-            if (counter == limit) {
-                break;
-            } 
-            counter++;
+        for (Entity entity : page) {
             String line = (String)entity.getProperty(Constants.COMMENTS_PROPERTY);
             long id = (long)entity.getKey().getId();
             long timestamp = (long)entity.getProperty(Constants.COMMENTS_TIMESTAMP);
@@ -60,23 +115,34 @@ public class DataServlet extends HttpServlet {
             comments.add(comment);
         }
 
-        Gson gson = new Gson();
-        response.setContentType("application/json;");
-        response.getWriter().println(gson.toJson(comments));
+        /* A short page means there is nothing after it. */
+        String nextCursor = null;
+        if (comments.size() == limit && limit > 0) {
+            nextCursor = page.getCursor().toWebSafeString();
+        }
+
+        response.setContentType("application/json; charset=UTF-8");
+        response.getWriter().println(GSON.toJson(new CommentPage(comments, nextCursor)));
     }
 
     /* 
-     * Adds a comment to Datastore, with corresponding time and ID.
+     * Adds a comment to Datastore, with corresponding time and ID, and to the
+     * newest comments kept in memory. The put is asynchronous, and the request
+     * thread is released until it is done.
      */
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
         String comment = request.getParameter(Constants.COMMENTS_PROPERTY);
+        long timestamp = System.currentTimeMillis();
         Entity taskEntity = new Entity(Constants.COMMENTS_KIND);
         taskEntity.setProperty(Constants.COMMENTS_PROPERTY, comment);
-        taskEntity.setProperty(Constants.COMMENTS_TIMESTAMP, System.currentTimeMillis());
-        DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-        datastore.put(taskEntity);
-        
-        response.sendRedirect("/index.html");
+        taskEntity.setProperty(Constants.COMMENTS_TIMESTAMP, timestamp);
+        AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+        Future<Key> put = datastore.put(taskEntity);
+        AsyncContext async = request.startAsync();
+        DatastoreFutures.whenDone(async, put, () -> {
+            RECENT_COMMENTS.add(new Comment(put.get().getId(), comment, timestamp));
+            ((HttpServletResponse) async.getResponse()).sendRedirect("/index.html");
+        });
     }
 }
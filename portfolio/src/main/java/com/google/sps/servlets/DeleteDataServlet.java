@@ -2,26 +2,35 @@ package com.google.sps.servlets;
  
 import com.google.gson.Gson;
 import com.google.sps.servlets.DataServlet;
-import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.AsyncDatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.KeyFactory;
 import java.io.IOException;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /*
- * Delete comment by ID from server.
+ * Delete comment by ID from server and from the newest comments kept in
+ * memory by DataServlet. The delete is asynchronous, and the request thread
+ * is released until it is done.
  */
-@WebServlet("/delete-data")
+@WebServlet(value = "/delete-data", asyncSupported = true)
 public class DeleteDataServlet extends HttpServlet {
     @Override
     public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
         long id = Long.parseLong(request.getParameter("id"));
         Key entityKey = KeyFactory.createKey("Comments", id);
-        DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-        datastore.delete(entityKey);
+        AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+        Future<Void> delete = datastore.delete(entityKey);
+        AsyncContext async = request.startAsync();
+        DatastoreFutures.whenDone(async, delete, () -> {
+            delete.get();
+            DataServlet.RECENT_COMMENTS.remove(id);
+        });
     }
 }
@@ -79,6 +79,10 @@ $(window).on('load', function() {
     }).scroll();
 });
  
+/* Limit and cursor of the comment page to load after the ones shown. */
+let commentsLimit = 0;
+let commentsCursor = null;
+ 
 /*
  * Retrieve comments from database. Set limit on the number of comments
  * retrieved through query parameter.
@@ -86,12 +90,36 @@ $(window).on('load', function() {
 function addCommentsToDOM(limit) {
     if (limit == '')
         return;
-    fetch('/data?limit='.concat(limit))
+    commentsLimit = limit;
+    commentsCursor = null;
+    document.getElementById('msg-container').innerHTML = '';
+    fetchComments();
+}
+ 
+/*
+ * Retrieve the next page of comments, continuing from where the last page
+ * ended, and add them below the ones already shown.
+ */
+function loadMoreComments() {
+    if (commentsCursor == null)
+        return;
+    fetchComments();
+}
+ 
+/*
+ * Fetch one page of comments and add them to the DOM. The server returns a
+ * cursor for the page after it, which is kept for loadMoreComments.
+ */
+function fetchComments() {
+    const params = new URLSearchParams();
+    params.append('limit', commentsLimit);
+    if (commentsCursor != null)
+        params.append('cursor', commentsCursor);
+    fetch('/data?'.concat(params.toString()))
     .then(response => response.json())
-    .then((comments) => {
+    .then((page) => {
         const container = document.getElementById('msg-container');
-        container.innerHTML = '';
-        comments.forEach((entry) => {
+        page.comments.forEach((entry) => {
             const comment = document.createElement('div');
             comment.style.display = 'flex';
  
@@ -113,6 +141,9 @@ function addCommentsToDOM(limit) {
             comment.appendChild(del);
             container.append(comment);
         })
+        commentsCursor = page.cursor;
+        const more = document.getElementById('more-comments');
+        more.style.display = (commentsCursor == null) ? 'none' : 'block';
     })
 }
  
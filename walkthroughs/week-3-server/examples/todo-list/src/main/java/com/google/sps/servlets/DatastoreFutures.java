@@ -0,0 +1,190 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.servlet.AsyncContext;
+import javax.servlet.ServletContext;
+import javax.servlet.ServletContextEvent;
+import javax.servlet.ServletContextListener;
+import javax.servlet.annotation.WebListener;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Finishes asynchronous requests once the AsyncDatastoreService calls they are waiting on are done.
+ * The Datastore futures have no way to register a callback, so a single poller thread checks
+ * isDone() on each request's futures every POLL_MILLIS and never waits on them. Once they are all
+ * done, the request's completion is handed back to the container with AsyncContext.start(). When
+ * MAX_PENDING requests are already waiting, further ones get a 503.
+ *
+ * <p>The poller belongs to the servlet context: it is started when the web app is deployed and
+ * shut down when it is undeployed, so a redeploy leaves no threads behind.
+ */
+@WebListener
+public final class DatastoreFutures implements ServletContextListener {
+  private static final String POLLER_ATTRIBUTE = DatastoreFutures.class.getName() + ".poller";
+  /** How long the poller waits between checks of a request's futures. */
+  private static final long POLL_MILLIS = 10;
+  /** Requests waiting on their futures, beyond which requests are turned away. */
+  private static final int MAX_PENDING = 1000;
+  /** How long undeploying waits for checks that are already scheduled. */
+  private static final long SHUTDOWN_SECONDS = 10;
+
+  /** What to do once the futures are done. Getting their results will not block. */
+  interface Completion {
+    void run() throws Exception;
+  }
+
+  /** The poller thread and the number of requests it is checking on. */
+  private static final class Poller {
+    final ScheduledExecutorService executor;
+    final AtomicInteger pending = new AtomicInteger();
+
+    Poller(ScheduledExecutorService executor) {
+      this.executor = executor;
+    }
+  }
+
+  @Override
+  public void contextInitialized(ServletContextEvent event) {
+    ScheduledExecutorService executor =
+        new ScheduledThreadPoolExecutor(
+            1,
+            runnable -> {
+              Thread thread = new Thread(runnable, "datastore-futures");
+              thread.setDaemon(true);
+              return thread;
+            });
+    event.getServletContext().setAttribute(POLLER_ATTRIBUTE, new Poller(executor));
+  }
+
+  @Override
+  public void contextDestroyed(ServletContextEvent event) {
+    ServletContext servletContext = event.getServletContext();
+    Poller poller = (Poller) servletContext.getAttribute(POLLER_ATTRIBUTE);
+    servletContext.removeAttribute(POLLER_ATTRIBUTE);
+    if (poller == null) {
+      return;
+    }
+    // Checks already scheduled still run once, and then get a 503 instead of rescheduling.
+    poller.executor.shutdown();
+    try {
+      if (!poller.executor.awaitTermination(SHUTDOWN_SECONDS, TimeUnit.SECONDS)) {
+        poller.executor.shutdownNow();
+      }
+    } catch (InterruptedException e) {
+      poller.executor.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /** Runs completion once future is done, then completes the request. */
+  static void whenDone(AsyncContext context, Future<?> future, Completion completion) {
+    whenDone(context, Collections.singletonList(future), completion);
+  }
+
+  /**
+   * Runs completion once every one of futures is done, then completes the request. If a Datastore
+   * call failed or completion throws, the response is a 500 instead, and if too many requests are
+   * already waiting, a 503.
+   */
+  static void whenDone(
+      AsyncContext context, List<? extends Future<?>> futures, Completion completion) {
+    Poller poller =
+        (Poller) context.getRequest().getServletContext().getAttribute(POLLER_ATTRIBUTE);
+    if (poller == null) {
+      finish(context, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    if (poller.pending.incrementAndGet() > MAX_PENDING) {
+      poller.pending.decrementAndGet();
+      finish(context, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+      return;
+    }
+    schedule(poller, context, futures, completion);
+  }
+
+  private static void schedule(
+      Poller poller,
+      AsyncContext context,
+      List<? extends Future<?>> futures,
+      Completion completion) {
+    try {
+      poller.executor.schedule(
+          () -> check(poller, context, futures, completion), POLL_MILLIS, TimeUnit.MILLISECONDS);
+    } catch (RejectedExecutionException e) {
+      // The web app is being undeployed.
+      poller.pending.decrementAndGet();
+      finish(context, HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+    }
+  }
+
+  /**
+   * Runs on the poller thread. Checks again later if any of futures is not done yet, and otherwise
+   * has the container run completion.
+   */
+  private static void check(
+      Poller poller,
+      AsyncContext context,
+      List<? extends Future<?>> futures,
+      Completion completion) {
+    for (Future<?> future : futures) {
+      if (!future.isDone()) {
+        schedule(poller, context, futures, completion);
+        return;
+      }
+    }
+    poller.pending.decrementAndGet();
+    try {
+      context.start(() -> complete(context, completion));
+    } catch (IllegalStateException e) {
+      // The request timed out and the container already completed it.
+    }
+  }
+
+  private static void complete(AsyncContext context, Completion completion) {
+    try {
+      completion.run();
+    } catch (Exception e) {
+      finish(context, HttpServletResponse.SC_INTERNAL_SERVER_ERROR);
+      return;
+    }
+    finish(context, 0);
+  }
+
+  /** Sends the error status, unless it is 0, and completes the request. */
+  private static void finish(AsyncContext context, int status) {
+    try {
+      if (status != 0) {
+        ((HttpServletResponse) context.getResponse()).sendError(status);
+      }
+    } catch (Exception ignored) {
+      // The response was already committed, so there is nothing left to report to.
+    } finally {
+      try {
+        context.complete();
+      } catch (IllegalStateException e) {
+        // The request timed out and the container already completed it.
+      }
+    }
+  }
+}
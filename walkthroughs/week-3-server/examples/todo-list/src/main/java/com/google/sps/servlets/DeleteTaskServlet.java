@@ -14,18 +14,20 @@
 
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.AsyncDatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Key;
 import com.google.appengine.api.datastore.KeyFactory;
 import java.io.IOException;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /** Servlet responsible for deleting tasks. */
-@WebServlet("/delete-task")
+@WebServlet(value = "/delete-task", asyncSupported = true)
 public class DeleteTaskServlet extends HttpServlet {
 
   @Override
@@ -33,7 +35,10 @@ public class DeleteTaskServlet extends HttpServlet {
     long id = Long.parseLong(request.getParameter("id"));
 
     Key taskEntityKey = KeyFactory.createKey("Task", id);
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    datastore.delete(taskEntityKey);
+    // Release the request thread while the delete is in flight.
+    AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+    Future<Void> delete = datastore.delete(taskEntityKey);
+    AsyncContext async = request.startAsync();
+    DatastoreFutures.whenDone(async, delete, delete::get);
   }
 }
\ No newline at end of file
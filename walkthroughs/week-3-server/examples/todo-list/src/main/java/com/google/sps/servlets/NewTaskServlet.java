@@ -14,17 +14,20 @@
 
 package com.google.sps.servlets;
 
-import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.AsyncDatastoreService;
 import com.google.appengine.api.datastore.DatastoreServiceFactory;
 import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.Key;
 import java.io.IOException;
+import java.util.concurrent.Future;
+import javax.servlet.AsyncContext;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 /** Servlet responsible for creating new tasks. */
-@WebServlet("/new-task")
+@WebServlet(value = "/new-task", asyncSupported = true)
 public class NewTaskServlet extends HttpServlet {
 
   @Override
@@ -36,9 +39,13 @@ public class NewTaskServlet extends HttpServlet {
     taskEntity.setProperty("title", title);
     taskEntity.setProperty("timestamp", timestamp);
 
-    DatastoreService datastore = DatastoreServiceFactory.getDatastoreService();
-    datastore.put(taskEntity);
-
-    response.sendRedirect("/index.html");
+    // Release the request thread while the put is in flight.
+    AsyncDatastoreService datastore = DatastoreServiceFactory.getAsyncDatastoreService();
+    Future<Key> put = datastore.put(taskEntity);
+    AsyncContext async = request.startAsync();
+    DatastoreFutures.whenDone(async, put, () -> {
+      put.get();
+      ((HttpServletResponse) async.getResponse()).sendRedirect("/index.html");
+    });
   }
 }
\ No newline at end of file
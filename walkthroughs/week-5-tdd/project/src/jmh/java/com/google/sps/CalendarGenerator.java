@@ -0,0 +1,130 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Generates synthetic calendars and meeting requests for the benchmarks. The same seed always
+ * produces the same calendar, so runs with the same parameters can be compared.
+ *
+ * <p>Everyone is drawn from a population of people. The people who are asked to a meeting come
+ * first, and the overlap ratio is the chance that any one seat at an event goes to one of them
+ * rather than to somebody else. At 0 the requested people are free all day, and at 1 every event
+ * on the calendar matters to the query.
+ */
+final class CalendarGenerator {
+  private static final int MIN_EVENT_MINUTES = 15;
+  private static final int MAX_EVENT_MINUTES = 120;
+
+  private final Random random;
+  private final int requestSize;
+  private final int optionalCount;
+  private final int population;
+
+  /**
+   * @param seed The seed for the random number generator.
+   * @param requestSize The number of mandatory attendees in each request.
+   * @param optionalCount The number of optional attendees in each request.
+   * @param population The number of people who are not in the request.
+   */
+  CalendarGenerator(long seed, int requestSize, int optionalCount, int population) {
+    if (requestSize < 0 || optionalCount < 0) {
+      throw new IllegalArgumentException("attendee counts cannot be negative");
+    }
+    if (population <= 0) {
+      throw new IllegalArgumentException("population must be positive");
+    }
+
+    this.random = new Random(seed);
+    this.requestSize = requestSize;
+    this.optionalCount = optionalCount;
+    this.population = population;
+  }
+
+  /**
+   * Returns {@code eventCount} events within the day, each with up to {@code attendeesPerEvent}
+   * attendees, where each seat goes to a requested person with probability {@code overlapRatio}.
+   */
+  List<Event> events(int eventCount, int attendeesPerEvent, double overlapRatio) {
+    return events(eventCount, attendeesPerEvent, overlapRatio, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #events(int, int, double)}, but spreads the events over {@code horizon}.
+   */
+  List<Event> events(int eventCount, int attendeesPerEvent, double overlapRatio,
+      TimeRange horizon) {
+    List<Event> events = new ArrayList<>(eventCount);
+    for (int i = 0; i < eventCount; i++) {
+      int duration =
+          MIN_EVENT_MINUTES + random.nextInt(MAX_EVENT_MINUTES - MIN_EVENT_MINUTES + 1);
+      int start = horizon.start() + random.nextInt(Math.max(horizon.duration() - duration, 1));
+
+      Set<String> attendees = new HashSet<>();
+      int requested = requestSize + optionalCount;
+      for (int seat = 0; seat < attendeesPerEvent; seat++) {
+        if (requested > 0 && random.nextDouble() < overlapRatio) {
+          attendees.add(person(random.nextInt(requested)));
+        } else {
+          attendees.add(person(requested + random.nextInt(population)));
+        }
+      }
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration), attendees));
+    }
+    return events;
+  }
+
+  /**
+   * Returns a request for the requested people.
+   */
+  MeetingRequest request(long duration) {
+    MeetingRequest request = new MeetingRequest(people(0, requestSize), duration);
+    for (String attendee : people(requestSize, requestSize + optionalCount)) {
+      request.addOptionalAttendee(attendee);
+    }
+    return request;
+  }
+
+  /**
+   * Returns {@code count} random ranges within the day.
+   */
+  TimeRange[] ranges(int count) {
+    TimeRange[] ranges = new TimeRange[count];
+    for (int i = 0; i < count; i++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      int end = start + random.nextInt(TimeRange.MINUTES_PER_DAY - start + 1);
+      ranges[i] = TimeRange.fromStartEnd(start, end, false);
+    }
+    return ranges;
+  }
+
+  private static Collection<String> people(int from, int to) {
+    List<String> people = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      people.add(person(i));
+    }
+    return people;
+  }
+
+  private static String person(int id) {
+    return "Person " + id;
+  }
+}
@@ -0,0 +1,73 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long one change to an {@link EventStore} takes as the calendar grows. A change
+ * publishes a new snapshot, so this is the cost of building a version, which should barely move
+ * between the small and the large calendar.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EventStoreBenchmark {
+  @Param({"1000", "100000"})
+  public int eventCount;
+
+  @Param({"3"})
+  public int attendeesPerEvent;
+
+  private EventStore store;
+  private List<Event> events;
+  private int next;
+
+  @Setup
+  public void setUp() {
+    // The population grows with the calendar and nobody is in a request, so every person has about
+    // the same number of events at every size and only the calendar's own structures grow.
+    CalendarGenerator generator = new CalendarGenerator(42, 0, 0, Math.max(eventCount / 10, 100));
+    events = generator.events(eventCount, attendeesPerEvent, 0);
+    store = new EventStore(events);
+  }
+
+  @Benchmark
+  public boolean update() {
+    // Ids start at 1 and updates keep them, so every id stays valid.
+    int position = next++ % eventCount;
+    return store.update(position + 1, events.get((position + 1) % eventCount));
+  }
+
+  @Benchmark
+  public boolean addThenDelete() {
+    return store.delete(store.add(events.get(next++ % eventCount)));
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures how long {@link FindMeetingQuery} takes to answer one request over a synthetic day,
+ * both by scanning the events and through an {@link AttendeeIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FindMeetingQueryBenchmark {
+  @Param({"100", "10000"})
+  public int eventCount;
+
+  @Param({"3", "10"})
+  public int attendeesPerEvent;
+
+  @Param({"0.1", "0.5"})
+  public double overlapRatio;
+
+  @Param({"2", "10"})
+  public int requestSize;
+
+  @Param({"0", "5"})
+  public int optionalCount;
+
+  @Param({"30"})
+  public long duration;
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final FirstMeetingTimesQuery findFirst = new FirstMeetingTimesQuery();
+  private List<Event> events;
+  private AttendeeIndex index;
+  private MeetingRequest request;
+
+  @Setup
+  public void setUp() {
+    CalendarGenerator generator =
+        new CalendarGenerator(42, requestSize, optionalCount, Math.max(eventCount, 100));
+    events = generator.events(eventCount, attendeesPerEvent, overlapRatio);
+    index = new AttendeeIndex(events);
+    request = generator.request(duration);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryEvents() {
+    return query.query(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryParallel() {
+    return query.queryParallel(events, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryIndex() {
+    return query.query(index, request);
+  }
+
+  @Benchmark
+  public Collection<TimeRange> queryBitmap() {
+    return query.queryBitmap(index, request);
+  }
+
+  @Benchmark
+  public List<TimeRange> findFirst() {
+    return findFirst.findFirst(events, request, 1);
+  }
+}
@@ -0,0 +1,141 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Interns attendee names to small, dense int ids, so events can store their attendees as a sorted
+ * {@code int[]} and the query engine can compare attendees without hashing strings. Instances are
+ * thread-safe.
+ *
+ * <p>Names come from requests, so the dictionary must not keep every name it has ever seen. Each
+ * owner of ids, in practice an {@link Event}, is tracked with a weak reference, and each id counts
+ * the live owners using it. Once the last of them has been garbage collected, the name is dropped
+ * and its id is handed out again, so the dictionary only holds the names of live events. An id
+ * can only be reused after its name is gone from the dictionary, so a lookup never mistakes one
+ * person for another: any event still holding the old id keeps it alive.
+ */
+final class AttendeeDictionary {
+  /**
+   * The dictionary shared by every {@link Event}.
+   */
+  static final AttendeeDictionary GLOBAL = new AttendeeDictionary();
+
+  // Read without a lock by lookup. Changed only while holding this.
+  private final ConcurrentHashMap<String, Integer> ids = new ConcurrentHashMap<>();
+
+  // The name of each id and how many times live owners use it, and the ids whose names were
+  // dropped. Guarded by this.
+  private String[] names = new String[16];
+  private int[] uses = new int[16];
+  private int[] freeIds = new int[16];
+  private int freeCount = 0;
+  private int size = 0;
+
+  // Owners that were garbage collected, and the references to the live ones, which have to be
+  // reachable themselves to ever be enqueued.
+  private final ReferenceQueue<Object> collected = new ReferenceQueue<>();
+  private final Set<Owner> owners = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Returns the ids of {@code names}, in the same order, giving names that do not have one the
+   * next free id. The ids stay taken for as long as {@code owner} is reachable.
+   */
+  synchronized int[] intern(Object owner, String[] names) {
+    releaseCollected();
+    int[] interned = new int[names.length];
+    for (int i = 0; i < names.length; i++) {
+      Integer id = ids.get(names[i]);
+      interned[i] = id != null ? id : add(names[i]);
+      uses[interned[i]]++;
+    }
+    owners.add(new Owner(owner, interned, collected));
+    return interned;
+  }
+
+  /**
+   * Returns the id of {@code name}, or -1 if it has none. Unlike {@link #intern}, this never grows
+   * the dictionary, so it is what lookups for people from requests use.
+   */
+  int lookup(String name) {
+    Integer id = ids.get(name);
+    return id == null ? -1 : id;
+  }
+
+  /**
+   * Returns one more than the largest id in use. Every id is less than this.
+   */
+  synchronized int size() {
+    return size;
+  }
+
+  /**
+   * Gives back one use of each of {@code released}, as happens when their owner is garbage
+   * collected, and drops the names nobody uses any more.
+   */
+  synchronized void release(int[] released) {
+    for (int id : released) {
+      if (--uses[id] == 0) {
+        ids.remove(names[id]);
+        names[id] = null;
+        if (freeCount == freeIds.length) {
+          freeIds = Arrays.copyOf(freeIds, freeCount * 2);
+        }
+        freeIds[freeCount++] = id;
+      }
+    }
+  }
+
+  private void releaseCollected() {
+    for (Owner owner = (Owner) collected.poll(); owner != null; owner = (Owner) collected.poll()) {
+      owners.remove(owner);
+      release(owner.ids);
+    }
+  }
+
+  private int add(String name) {
+    int id;
+    if (freeCount > 0) {
+      id = freeIds[--freeCount];
+    } else {
+      id = size++;
+      if (id == names.length) {
+        names = Arrays.copyOf(names, id * 2);
+        uses = Arrays.copyOf(uses, id * 2);
+      }
+    }
+    names[id] = name;
+    ids.put(name, id);
+    return id;
+  }
+
+  /**
+   * A weak reference to an owner of ids that remembers the ids, as the owner is gone by the time
+   * they are given back.
+   */
+  private static final class Owner extends WeakReference<Object> {
+    final int[] ids;
+
+    Owner(Object owner, int[] ids, ReferenceQueue<Object> queue) {
+      super(owner, queue);
+      this.ids = ids;
+    }
+  }
+}
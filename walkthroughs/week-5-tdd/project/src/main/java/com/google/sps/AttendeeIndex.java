@@ -0,0 +1,258 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * An inverted index from attendee name to the times that person is busy. Each person's busy times
+ * are kept sorted by start so that a query only has to look at the schedules of the people it
+ * asks about instead of every event on the calendar. The index is updated incrementally as events
+ * are added and removed. Instances are not thread-safe.
+ *
+ * <p>The busy times are stored as packed {@link Intervals} rather than as lists of
+ * {@code TimeRange}s, so a person's schedule is one flat {@code long[]} and queries can copy it
+ * into their own buffers without creating an object per busy time.
+ *
+ * <p>Alongside the sorted ranges, the index keeps a bitmap per person with one bit for every minute
+ * of the day that is set while the person is busy. OR-ing these bitmaps answers a query in a fixed
+ * number of word operations no matter how many events each person has.
+ *
+ * <p>An index can be copied in constant time: the schedules are kept in a {@link PersistentMap},
+ * so the copy shares the map and every person's schedule with the original, and a change only
+ * copies the schedules of the people it touches plus a few map nodes. This is what lets
+ * {@link EventStore} publish a new version of the calendar without reindexing it.
+ */
+public final class AttendeeIndex {
+  private PersistentMap<String, Schedule> schedules = PersistentMap.empty();
+
+  // The longest busy time ever added. Bounds how far before a window a busy time can start and
+  // still overlap it. Never shrinks, which is safe but may make windowed lookups scan a bit more.
+  private int maxDuration = 0;
+
+  // Stamped on the schedules this index created, which it may change in place. Any other schedule
+  // is still shared with the index this one was copied from, and is copied before it is changed.
+  private final Object stamp = new Object();
+
+  /**
+   * Creates an empty index.
+   */
+  public AttendeeIndex() {}
+
+  /**
+   * Creates an index containing every event in {@code events}. Busy times are appended and each
+   * person's schedule is sorted once at the end, rather than inserting every event in order.
+   *
+   * @param events The events to index. Must be non-null.
+   */
+  public AttendeeIndex(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Map<String, Schedule> byAttendee = new HashMap<>();
+    for (Event event : events) {
+      TimeRange when = event.getWhen();
+      maxDuration = Math.max(maxDuration, when.duration());
+      for (String attendee : event.getAttendees()) {
+        Schedule schedule = byAttendee.get(attendee);
+        if (schedule == null) {
+          schedule = new Schedule(stamp);
+          byAttendee.put(attendee, schedule);
+        }
+        schedule.busyTimes.add(when);
+        mark(schedule.busyBitmap, when.start(), when.end());
+      }
+    }
+    for (Map.Entry<String, Schedule> entry : byAttendee.entrySet()) {
+      entry.getValue().busyTimes.sort();
+      schedules = schedules.put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  /**
+   * Creates a copy of {@code other} that shares every person's schedule with it until it is changed
+   * in the copy. Copying takes constant time. {@code other} must not be changed afterwards, as that
+   * would change the copy too.
+   */
+  AttendeeIndex(AttendeeIndex other) {
+    schedules = other.schedules;
+    maxDuration = other.maxDuration;
+  }
+
+  /**
+   * Marks every attendee of {@code event} as busy during the event.
+   */
+  public void add(Event event) {
+    TimeRange when = event.getWhen();
+    maxDuration = Math.max(maxDuration, when.duration());
+    long interval = Intervals.pack(when.start(), when.end());
+    for (String attendee : event.getAttendees()) {
+      Schedule schedule = schedules.get(attendee);
+      schedule = schedule == null ? newSchedule(attendee) : ownSchedule(attendee, schedule);
+      schedule.busyTimes.insertSorted(interval);
+      mark(schedule.busyBitmap, when.start(), when.end());
+    }
+  }
+
+  /**
+   * Removes one busy time matching {@code event} from each of its attendees. Returns {@code true}
+   * if the event was in the index.
+   */
+  public boolean remove(Event event) {
+    TimeRange when = event.getWhen();
+    long interval = Intervals.pack(when.start(), when.end());
+    boolean removed = false;
+    for (String attendee : event.getAttendees()) {
+      Schedule schedule = schedules.get(attendee);
+      if (schedule == null) {
+        continue;
+      }
+      schedule = ownSchedule(attendee, schedule);
+      Intervals times = schedule.busyTimes;
+      if (!times.removeSorted(interval)) {
+        continue;
+      }
+      removed = true;
+
+      if (times.isEmpty()) {
+        schedules = schedules.remove(attendee);
+      } else {
+        // Other ranges may cover some of the same minutes, so rebuild rather than clear bits.
+        BitSet bitmap = schedule.busyBitmap;
+        bitmap.clear();
+        for (int i = 0; i < times.size(); i++) {
+          mark(bitmap, Intervals.start(times.get(i)), Intervals.end(times.get(i)));
+        }
+      }
+    }
+    return removed;
+  }
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy, sorted by start. People
+   * without any events get an empty list.
+   */
+  public List<TimeRange> getBusyTimes(String attendee) {
+    Schedule schedule = schedules.get(attendee);
+    if (schedule == null) {
+      return Collections.emptyList();
+    }
+    Intervals times = schedule.busyTimes;
+    return Collections.unmodifiableList(times.toTimeRanges(0, times.size()));
+  }
+
+  /**
+   * Returns a read-only list of the times {@code attendee} is busy that overlap {@code window},
+   * sorted by start. Both ends of the run are found with a binary search, so busy times far outside
+   * the window are never looked at.
+   */
+  public List<TimeRange> getBusyTimes(String attendee, TimeRange window) {
+    Intervals overlapping = new Intervals();
+    addBusyIntervals(attendee, window, overlapping);
+    return Collections.unmodifiableList(overlapping.toTimeRanges(0, overlapping.size()));
+  }
+
+  /**
+   * Appends the times {@code attendee} is busy that overlap {@code window} to {@code out}, sorted
+   * by start. This is the allocation-free form of {@link #getBusyTimes(String, TimeRange)} that the
+   * query engine uses.
+   */
+  void addBusyIntervals(String attendee, TimeRange window, Intervals out) {
+    Schedule schedule = schedules.get(attendee);
+    if (schedule == null) {
+      return;
+    }
+    Intervals times = schedule.busyTimes;
+
+    // Anything starting before this cannot reach into the window.
+    int from = times.firstStartAfter(window.start() - maxDuration);
+    int to = times.firstStartAfter(window.end() - 1);
+    for (int i = from; i < to; i++) {
+      long time = times.get(i);
+      if (Intervals.end(time) > window.start()) {
+        out.add(time);
+      }
+    }
+  }
+
+  /**
+   * Returns the bitmap of minutes in the day during which {@code attendee} is busy, or {@code null}
+   * if the person has no events. The bitmap is owned by the index and must not be modified.
+   */
+  BitSet getBusyBitmap(String attendee) {
+    Schedule schedule = schedules.get(attendee);
+    return schedule == null ? null : schedule.busyBitmap;
+  }
+
+  /**
+   * Gives {@code attendee} an empty schedule of this index's own.
+   */
+  private Schedule newSchedule(String attendee) {
+    Schedule schedule = new Schedule(stamp);
+    schedules = schedules.put(attendee, schedule);
+    return schedule;
+  }
+
+  /**
+   * Returns {@code schedule}, which is {@code attendee}'s, if this index created it, or else gives
+   * this index its own copy of it.
+   */
+  private Schedule ownSchedule(String attendee, Schedule schedule) {
+    if (schedule.stamp == stamp) {
+      return schedule;
+    }
+    Schedule copy = new Schedule(schedule, stamp);
+    schedules = schedules.put(attendee, copy);
+    return copy;
+  }
+
+  /**
+   * Sets the bits for every minute of [start, end) that falls within the day.
+   */
+  private static void mark(BitSet bitmap, int start, int end) {
+    start = Math.max(start, TimeRange.START_OF_DAY);
+    end = Math.min(end, TimeRange.MINUTES_PER_DAY);
+    if (start < end) {
+      bitmap.set(start, end);
+    }
+  }
+
+  /**
+   * One person's busy times and bitmap, and the stamp of the index that may change them.
+   */
+  private static final class Schedule {
+    final Intervals busyTimes;
+    final BitSet busyBitmap;
+    final Object stamp;
+
+    Schedule(Object stamp) {
+      this.busyTimes = new Intervals(4);
+      this.busyBitmap = new BitSet(TimeRange.MINUTES_PER_DAY);
+      this.stamp = stamp;
+    }
+
+    Schedule(Schedule other, Object stamp) {
+      this.busyTimes = new Intervals(other.busyTimes);
+      this.busyBitmap = (BitSet) other.busyBitmap.clone();
+      this.stamp = stamp;
+    }
+  }
+}
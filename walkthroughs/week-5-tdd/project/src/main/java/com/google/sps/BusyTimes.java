@@ -0,0 +1,260 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The busy times gathered for one meeting request, shared by {@link FindMeetingQuery} and the
+ * other meeting queries, along with the sweep that turns them into free ranges.
+ *
+ * <p>Busy times are gathered into packed {@link Intervals} instead of lists of TimeRanges, so the
+ * sort and sweep run over plain longs and the only objects a query creates are the ranges it
+ * returns. The buffers are reused across queries on the same thread, which keeps queries from
+ * different threads independent. Every query gets its buffers through {@link #search}, which also
+ * checks the requested duration.
+ */
+final class BusyTimes {
+  private static final ThreadLocal<BusyTimes> SCRATCH = ThreadLocal.withInitial(BusyTimes::new);
+
+  final Intervals mandatory = new Intervals();
+  final Intervals optional = new Intervals();
+  final Intervals boundaries = new Intervals();
+  int[] runEnds = new int[8];
+
+  /** One search over the busy times of a request. */
+  interface Search<R> {
+    /** Returns the answer, given this thread's cleared buffers and the requested duration. */
+    R run(BusyTimes busy, long duration);
+  }
+
+  /** The free ranges a search found, and whether the optional attendees had to be dropped. */
+  static final class FreeTimes {
+    final List<TimeRange> times;
+    final boolean fellBack;
+
+    FreeTimes(List<TimeRange> times, boolean fellBack) {
+      this.times = times;
+      this.fellBack = fellBack;
+    }
+  }
+
+  /** Gathers the busy times of a request. */
+  interface Source {
+    /** Adds the busy times to {@code busy} and returns how many events were looked at. */
+    int addTo(BusyTimes busy);
+  }
+
+  private BusyTimes() {}
+
+  /**
+   * Runs {@code search} with this thread's buffers, cleared, unless the requested duration is
+   * negative or does not fit in {@code horizon}, in which case there is no answer and an empty
+   * list is returned.
+   */
+  static <T> List<T> search(MeetingRequest request, TimeRange horizon, Search<List<T>> search) {
+    List<T> found = run(request, horizon, search);
+    return found != null ? found : new ArrayList<T>(); // return empty if invalid duration
+  }
+
+  /**
+   * Finds the meeting times for {@code request} in {@code horizon}, as {@link FindMeetingQuery}
+   * does, with the busy times from {@code source} and the time outside of the attendees'
+   * {@code workingHours}. Records the query in {@code stats}.
+   */
+  static FreeTimes findMeetingTimes(
+      QueryStats stats,
+      MeetingRequest request,
+      TimeRange horizon,
+      Map<String, WorkingHours> workingHours,
+      Source source) {
+    FreeTimes found = run(request, horizon, (busy, duration) -> {
+      long startNanos = System.nanoTime();
+      int scanned = source.addTo(busy);
+      // Time outside working hours is not taken up by any event, so it does not count as matched.
+      int matched = busy.size();
+      busy.addUnavailableIntervals(workingHours, request, horizon);
+      FreeTimes meetingTimes = busy.findMeetingTimes(duration, horizon);
+      stats.record(System.nanoTime() - startNanos, scanned, matched, meetingTimes.times.size(),
+          meetingTimes.fellBack);
+      return meetingTimes;
+    });
+    // Return empty if invalid duration.
+    return found != null ? found : new FreeTimes(new ArrayList<TimeRange>(), false);
+  }
+
+  /**
+   * The one entry to the buffers: checks the requested duration and hands this thread's buffers,
+   * cleared, to {@code search}. Returns null if the duration is negative or does not fit in
+   * {@code horizon}.
+   */
+  private static <R> R run(MeetingRequest request, TimeRange horizon, Search<R> search) {
+    long duration = request.getDuration();
+    if (duration < 0 || duration > horizon.duration()) {
+      return null;
+    }
+    return search.run(SCRATCH.get().clear(), duration);
+  }
+
+  private BusyTimes clear() {
+    mandatory.clear();
+    optional.clear();
+    boundaries.clear();
+    return this;
+  }
+
+  /** Returns the number of mandatory and optional busy times. */
+  int size() {
+    return mandatory.size() + optional.size();
+  }
+
+  /**
+   * Adds the busy times of the requested attendees that overlap the horizon, as found by scanning
+   * {@code events}. An event with both kinds of attendees only counts as mandatory. Returns the
+   * number of events looked at.
+   */
+  int addEvents(Collection<Event> events, MeetingRequest request, TimeRange horizon) {
+    BitSet mandatoryAttendees = attendeeIds(request.getAttendees());
+    BitSet optionalAttendees = attendeeIds(request.getOptionalAttendees());
+    for (Event event : events) {
+      if (!event.getWhen().overlaps(horizon)) {
+        continue;
+      }
+      if (attendsAny(event, mandatoryAttendees)) {
+        mandatory.add(event.getWhen());
+      } else if (attendsAny(event, optionalAttendees)) {
+        optional.add(event.getWhen());
+      }
+    }
+    return events.size();
+  }
+
+  /**
+   * Same as {@link #addEvents(Collection, MeetingRequest, TimeRange)}, but copies the busy times
+   * out of an index. The index hands out only the requested attendees' busy times, so those are
+   * all it looks at, and their number is returned.
+   */
+  int addEvents(AttendeeIndex index, MeetingRequest request, TimeRange horizon) {
+    for (String attendee : request.getAttendees()) {
+      index.addBusyIntervals(attendee, horizon, mandatory);
+    }
+    for (String attendee : request.getOptionalAttendees()) {
+      index.addBusyIntervals(attendee, horizon, optional);
+    }
+    return size();
+  }
+
+  /**
+   * Adds the time outside the working hours of the requested attendees that overlaps the
+   * horizon.
+   */
+  void addUnavailableIntervals(
+      Map<String, WorkingHours> workingHours, MeetingRequest request, TimeRange horizon) {
+    addUnavailableIntervals(workingHours, request.getAttendees(), horizon, mandatory);
+    addUnavailableIntervals(workingHours, request.getOptionalAttendees(), horizon, optional);
+  }
+
+  /**
+   * Appends the time in {@code horizon} outside the {@code workingHours} of each of
+   * {@code attendees} to {@code out}. People without working hours are available around the
+   * clock.
+   */
+  static void addUnavailableIntervals(Map<String, WorkingHours> workingHours,
+      Collection<String> attendees, TimeRange horizon, Intervals out) {
+    for (String attendee : attendees) {
+      WorkingHours hours = workingHours.get(attendee);
+      if (hours != null) {
+        hours.addUnavailableIntervals(horizon, out);
+      }
+    }
+  }
+
+  /**
+   * If valid TimeRanges for all attendees exist, return them. Otherwise, only find TimeRanges for
+   * mandatory attendees, and say so. The mandatory busy times are appended to the optional ones,
+   * and both buffers are sorted in place.
+   */
+  FreeTimes findMeetingTimes(long duration, TimeRange horizon) {
+    boolean fellBack = false;
+    if (!optional.isEmpty()) {
+      optional.addAll(mandatory);
+      optional.sort();
+      List<TimeRange> meetingTimes = findFreeTimes(optional, duration, horizon);
+      if (!meetingTimes.isEmpty()) {
+        return new FreeTimes(meetingTimes, false);
+      }
+      fellBack = true;
+    }
+    mandatory.sort();
+    return new FreeTimes(findFreeTimes(mandatory, duration, horizon), fellBack);
+  }
+
+  /**
+   * Sweeps over busy times that are already sorted by start once, merging overlapping ranges on
+   * the fly. Every gap between the end of the merged busy block so far and the start of the next
+   * busy time is a free range, and is kept if it is at least {@code duration} minutes long. Only
+   * the part of the horizon is searched, and the resulting ranges are already in ascending order.
+   */
+  static List<TimeRange> findFreeTimes(Intervals busyTimes, long duration, TimeRange horizon) {
+    List<TimeRange> freeTimes = new ArrayList<>();
+    int freeStart = horizon.start();
+    for (int i = 0; i < busyTimes.size(); i++) {
+      long busy = busyTimes.get(i);
+      int busyStart = Math.min(Intervals.start(busy), horizon.end());
+      if (busyStart > freeStart && busyStart - freeStart >= duration) {
+        freeTimes.add(TimeRange.fromStartEnd(freeStart, busyStart, false));
+      }
+      freeStart = Math.max(freeStart, Intervals.end(busy));
+    }
+
+    // Add the remaining TimeRange [freeStart, horizon end) if it is valid.
+    if (freeStart < horizon.end() && horizon.end() - freeStart >= duration) {
+      freeTimes.add(TimeRange.fromStartEnd(freeStart, horizon.end(), false));
+    }
+    return freeTimes;
+  }
+
+  /**
+   * Returns the set of interned ids of {@code attendees}. Names that were never interned belong to
+   * people without any events, so they are left out.
+   */
+  static BitSet attendeeIds(Collection<String> attendees) {
+    BitSet ids = new BitSet();
+    for (String attendee : attendees) {
+      int id = AttendeeDictionary.GLOBAL.lookup(attendee);
+      if (id >= 0) {
+        ids.set(id);
+      }
+    }
+    return ids;
+  }
+
+  /**
+   * Returns whether any of the event's attendees is in {@code wanted}. Each check is a bit lookup
+   * by the attendee's interned id, so no strings are hashed.
+   */
+  static boolean attendsAny(Event event, BitSet wanted) {
+    for (int attendee : event.getAttendeeIds()) {
+      if (wanted.get(attendee)) {
+        return true;
+      }
+    }
+    return false;
+  }
+}
@@ -0,0 +1,340 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A read-only calendar in a compact, column oriented binary format that queries read in place,
+ * usually straight out of a memory-mapped file. Unlike {@link AttendeeIndex}, no {@link Event} or
+ * {@link TimeRange} objects are created when a snapshot is loaded: opening one only checks its
+ * header and its offset columns, so it takes time in the number of attendees but not of events,
+ * and processes that map the same file share its pages through the operating system's page cache.
+ *
+ * <p>A snapshot keeps only what the query engine needs: when each event is and who attends it.
+ * The format is a header of ints followed by these sections, all big-endian:
+ *
+ * <ul>
+ *   <li>The start and the duration of every event, as two int columns sorted by start.
+ *   <li>For every attendee, the offset of their name in the name section and the offset of their
+ *       posting list, as two int columns with one extra entry marking the end.
+ *   <li>The posting lists: for each attendee, the ascending numbers of the events they attend, so
+ *       their busy times come out sorted by start.
+ *   <li>The attendee names in UTF-8, sorted bytewise so a name can be found by binary search.
+ * </ul>
+ *
+ * <p>Snapshots are written with {@link #write} and opened with {@link #map} or {@link #wrap}.
+ * Instances are thread-safe, since the buffer is only ever read with absolute gets.
+ */
+public final class CalendarSnapshot {
+  private static final int MAGIC = 0x43414c53; // "CALS"
+  private static final int FORMAT_VERSION = 1;
+  private static final int HEADER_INTS = 7;
+
+  private final ByteBuffer buffer;
+  private final int eventCount;
+  private final int attendeeCount;
+  private final int maxDuration;
+
+  // Byte offsets of the sections.
+  private final int starts;
+  private final int durations;
+  private final int nameOffsets;
+  private final int postingOffsets;
+  private final int postings;
+  private final int names;
+
+  private CalendarSnapshot(ByteBuffer buffer) {
+    if (buffer.capacity() < HEADER_INTS * Integer.BYTES
+        || buffer.getInt(0) != MAGIC || buffer.getInt(4) != FORMAT_VERSION) {
+      throw new IllegalArgumentException("buffer is not a calendar snapshot");
+    }
+    this.buffer = buffer;
+    this.eventCount = buffer.getInt(8);
+    this.attendeeCount = buffer.getInt(12);
+    this.maxDuration = buffer.getInt(16);
+    int postingCount = buffer.getInt(20);
+    int nameBytes = buffer.getInt(24);
+    long expectedBytes = HEADER_INTS * Integer.BYTES
+        + (2L * eventCount + 2L * (attendeeCount + 1) + postingCount) * Integer.BYTES + nameBytes;
+    if (eventCount < 0 || attendeeCount < 0 || postingCount < 0 || nameBytes < 0
+        || expectedBytes != buffer.capacity()) {
+      throw new IllegalArgumentException("calendar snapshot is truncated or corrupt");
+    }
+
+    this.starts = HEADER_INTS * Integer.BYTES;
+    this.durations = starts + eventCount * Integer.BYTES;
+    this.nameOffsets = durations + eventCount * Integer.BYTES;
+    this.postingOffsets = nameOffsets + (attendeeCount + 1) * Integer.BYTES;
+    this.postings = postingOffsets + (attendeeCount + 1) * Integer.BYTES;
+    this.names = postings + postingCount * Integer.BYTES;
+    checkOffsets(nameOffsets, nameBytes);
+    checkOffsets(postingOffsets, postingCount);
+  }
+
+  /**
+   * Checks that the offset column at {@code section} starts at 0, never goes down and ends at
+   * {@code total}, so every attendee's name and posting list lies inside its section.
+   */
+  private void checkOffsets(int section, int total) {
+    int previous = 0;
+    for (int i = 0; i <= attendeeCount; i++) {
+      int offset = intAt(section, i);
+      if (offset < previous || (i == 0 && offset != 0) || offset > total) {
+        throw new IllegalArgumentException("calendar snapshot has invalid offsets");
+      }
+      previous = offset;
+    }
+    if (previous != total) {
+      throw new IllegalArgumentException("calendar snapshot has invalid offsets");
+    }
+  }
+
+  /**
+   * Opens the snapshot in {@code buffer} between its position and its limit. The contents must not
+   * be changed afterwards.
+   */
+  public static CalendarSnapshot wrap(ByteBuffer buffer) {
+    if (buffer == null) {
+      throw new IllegalArgumentException("buffer cannot be null");
+    }
+    return new CalendarSnapshot(buffer.slice());
+  }
+
+  /**
+   * Maps the snapshot file at {@code path} into memory and opens it. Nothing is read into the heap;
+   * pages are loaded by the operating system as queries touch them.
+   */
+  public static CalendarSnapshot map(Path path) throws IOException {
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      return wrap(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+  }
+
+  /**
+   * Writes {@code events} to {@code out} in the snapshot format. Titles are not kept. Attendee
+   * names must be valid UTF-16, without unpaired surrogates, since they are stored in UTF-8.
+   */
+  public static void write(Collection<Event> events, OutputStream out) throws IOException {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    Event[] sorted = events.toArray(new Event[0]);
+    Arrays.sort(sorted, Comparator.comparingInt(event -> event.getWhen().start()));
+
+    // Number the attendees in the order of their UTF-8 names. Valid names encode to distinct
+    // bytes, so the names map one to one onto their numbers.
+    Map<String, byte[]> encoded = new HashMap<>();
+    int maxDuration = 0;
+    for (Event event : sorted) {
+      maxDuration = Math.max(maxDuration, event.getWhen().duration());
+      for (String attendee : event.getAttendees()) {
+        if (!encoded.containsKey(attendee)) {
+          checkName(attendee);
+          encoded.put(attendee, attendee.getBytes(StandardCharsets.UTF_8));
+        }
+      }
+    }
+    String[] attendees = encoded.keySet().toArray(new String[0]);
+    Arrays.sort(attendees, (a, b) -> compareBytes(encoded.get(a), encoded.get(b)));
+    byte[][] names = new byte[attendees.length][];
+    Map<String, Integer> numbers = new HashMap<>();
+    int nameBytes = 0;
+    for (int i = 0; i < attendees.length; i++) {
+      names[i] = encoded.get(attendees[i]);
+      numbers.put(attendees[i], i);
+      nameBytes += names[i].length;
+    }
+
+    // Count each attendee's events first, so the posting lists can be filled in place.
+    int[] postingOffsets = new int[names.length + 1];
+    for (Event event : sorted) {
+      for (String attendee : event.getAttendees()) {
+        postingOffsets[numbers.get(attendee) + 1]++;
+      }
+    }
+    for (int i = 0; i < names.length; i++) {
+      postingOffsets[i + 1] += postingOffsets[i];
+    }
+    int[] postings = new int[postingOffsets[names.length]];
+    int[] next = Arrays.copyOf(postingOffsets, names.length);
+    for (int i = 0; i < sorted.length; i++) {
+      for (String attendee : sorted[i].getAttendees()) {
+        postings[next[numbers.get(attendee)]++] = i;
+      }
+    }
+
+    DataOutputStream data = new DataOutputStream(out);
+    data.writeInt(MAGIC);
+    data.writeInt(FORMAT_VERSION);
+    data.writeInt(sorted.length);
+    data.writeInt(names.length);
+    data.writeInt(maxDuration);
+    data.writeInt(postings.length);
+    data.writeInt(nameBytes);
+    for (Event event : sorted) {
+      data.writeInt(event.getWhen().start());
+    }
+    for (Event event : sorted) {
+      data.writeInt(event.getWhen().duration());
+    }
+    int nameOffset = 0;
+    for (byte[] name : names) {
+      data.writeInt(nameOffset);
+      nameOffset += name.length;
+    }
+    data.writeInt(nameOffset);
+    for (int offset : postingOffsets) {
+      data.writeInt(offset);
+    }
+    for (int posting : postings) {
+      data.writeInt(posting);
+    }
+    for (byte[] name : names) {
+      data.write(name);
+    }
+    data.flush();
+  }
+
+  /**
+   * Returns the number of events in the snapshot.
+   */
+  public int size() {
+    return eventCount;
+  }
+
+  /**
+   * Appends the times {@code attendee} is busy that overlap {@code window} to {@code out}, sorted
+   * by start, reading them straight from the buffer. Works like
+   * {@link AttendeeIndex#addBusyIntervals}.
+   */
+  void addBusyIntervals(String attendee, TimeRange window, Intervals out) {
+    int number = find(attendee.getBytes(StandardCharsets.UTF_8));
+    if (number < 0) {
+      return;
+    }
+    int first = intAt(postingOffsets, number);
+    int last = intAt(postingOffsets, number + 1);
+
+    // Anything starting before this cannot reach into the window.
+    int from = firstStartAfter(first, last, window.start() - maxDuration);
+    int to = firstStartAfter(from, last, window.end() - 1);
+    for (int i = from; i < to; i++) {
+      int event = intAt(postings, i);
+      int start = intAt(starts, event);
+      int end = start + intAt(durations, event);
+      if (end > window.start()) {
+        out.add(Intervals.pack(start, end));
+      }
+    }
+  }
+
+  /**
+   * Returns the first position in {@code [from, to)} of the posting list whose event starts after
+   * {@code point}, or {@code to} if there is none.
+   */
+  private int firstStartAfter(int from, int to, int point) {
+    int low = from;
+    int high = to;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (intAt(starts, intAt(postings, mid)) <= point) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the number of the attendee called {@code name}, or -1 if nobody is.
+   */
+  private int find(byte[] name) {
+    int low = 0;
+    int high = attendeeCount - 1;
+    while (low <= high) {
+      int mid = (low + high) >>> 1;
+      int compared = compareName(mid, name);
+      if (compared < 0) {
+        low = mid + 1;
+      } else if (compared > 0) {
+        high = mid - 1;
+      } else {
+        return mid;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Compares the name of attendee {@code number} bytewise to {@code name}, without copying it out
+   * of the buffer.
+   */
+  private int compareName(int number, byte[] name) {
+    int offset = names + intAt(nameOffsets, number);
+    int length = intAt(nameOffsets, number + 1) - intAt(nameOffsets, number);
+    for (int i = 0; i < Math.min(length, name.length); i++) {
+      int compared = Integer.compare(buffer.get(offset + i) & 0xff, name[i] & 0xff);
+      if (compared != 0) {
+        return compared;
+      }
+    }
+    return Integer.compare(length, name.length);
+  }
+
+  /**
+   * Throws if {@code name} has a surrogate without its pair, which UTF-8 cannot encode. It would be
+   * stored as a replacement character and be mixed up with other names.
+   */
+  private static void checkName(String name) {
+    for (int i = 0; i < name.length(); i++) {
+      char c = name.charAt(i);
+      if (Character.isHighSurrogate(c) && i + 1 < name.length()
+          && Character.isLowSurrogate(name.charAt(i + 1))) {
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        throw new IllegalArgumentException("attendee names must be valid UTF-16");
+      }
+    }
+  }
+
+  private int intAt(int section, int index) {
+    return buffer.getInt(section + index * Integer.BYTES);
+  }
+
+  private static int compareBytes(byte[] a, byte[] b) {
+    for (int i = 0; i < Math.min(a.length, b.length); i++) {
+      int compared = Integer.compare(a[i] & 0xff, b[i] & 0xff);
+      if (compared != 0) {
+        return compared;
+      }
+    }
+    return Integer.compare(a.length, b.length);
+  }
+}
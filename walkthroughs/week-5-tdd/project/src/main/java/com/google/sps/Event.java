@@ -14,20 +14,31 @@
 
 package com.google.sps;
 
+import java.util.AbstractSet;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Set;
 
 /**
  * Event is the container class for when a specific group of people are meeting and are therefore
  * busy. Events are considered read-only.
+ *
+ * <p>Attendees are interned in {@link AttendeeDictionary#GLOBAL} and kept as a sorted array of ids
+ * alongside the names in the same order, which takes far less memory than a hash set per event and
+ * lets the query engine check attendees with array lookups instead of string hashing. The ids stay
+ * taken while the event is reachable and are handed out again once it has been collected.
  */
 public final class Event {
   private final String title;
   private final TimeRange when;
-  private final Set<String> attendees = new HashSet<>();
+  private final String[] attendees;
+
+  // Ids of the attendees in ascending order, with attendees[i] being the name for attendeeIds[i].
+  // Transient so that the JSON form of an event only has the names.
+  private final transient int[] attendeeIds;
 
   /**
    * A comparator for sorting Events by their end time in descending order.
@@ -59,9 +70,37 @@ public final class Event {
       throw new IllegalArgumentException("attendees cannot be null. Use empty array instead.");
     }
 
+    String[] names = attendees.toArray(new String[0]);
+    for (String name : names) {
+      if (name == null) {
+        throw new IllegalArgumentException("attendees cannot contain null");
+      }
+    }
+
+    // Sorting the ids as longs with the position in the low half keeps each name with its id.
+    int[] interned = AttendeeDictionary.GLOBAL.intern(this, names);
+    long[] sorted = new long[names.length];
+    for (int i = 0; i < names.length; i++) {
+      sorted[i] = ((long) interned[i] << 32) | i;
+    }
+    Arrays.sort(sorted);
+
+    int count = 0;
+    int[] ids = new int[sorted.length];
+    String[] sortedNames = new String[sorted.length];
+    for (long entry : sorted) {
+      int id = (int) (entry >>> 32);
+      if (count == 0 || ids[count - 1] != id) {
+        ids[count] = id;
+        sortedNames[count] = names[(int) entry];
+        count++;
+      }
+    }
+
     this.title = title;
     this.when = when;
-    this.attendees.addAll(attendees);
+    this.attendeeIds = Arrays.copyOf(ids, count);
+    this.attendees = Arrays.copyOf(sortedNames, count);
   }
 
   /**
@@ -82,9 +121,16 @@ public final class Event {
    * Returns a read-only set of required attendees for this event.
    */
   public Set<String> getAttendees() {
-    // Return the attendees as an unmodifiable set so that the caller can't change our
-    // internal data.
-    return Collections.unmodifiableSet(attendees);
+    // Return a read-only view of the attendees so that the caller can't change our internal data.
+    return new AttendeeSet();
+  }
+
+  /**
+   * Returns the ids of the attendees in ascending order. The array is owned by the event and must
+   * not be modified.
+   */
+  int[] getAttendeeIds() {
+    return attendeeIds;
   }
 
   @Override
@@ -100,8 +146,33 @@ public final class Event {
   }
 
   private static boolean equals(Event a, Event b) {
-    // {@code attendees} must be a set for equals to work as expected. According to the {@code Set}
-    // interface documentation, equals will check for set-equality across all set implementations.
-    return a.title.equals(b.title) && a.when.equals(b.when) && a.attendees.equals(b.attendees);
+    // The ids are sorted and have no duplicates, so equal arrays mean equal sets of attendees.
+    return a.title.equals(b.title) && a.when.equals(b.when)
+        && Arrays.equals(a.attendeeIds, b.attendeeIds);
+  }
+
+  /**
+   * A read-only set view of the attendees. Membership is a dictionary lookup and a binary search
+   * over the ids.
+   */
+  private final class AttendeeSet extends AbstractSet<String> {
+    @Override
+    public boolean contains(Object other) {
+      if (!(other instanceof String)) {
+        return false;
+      }
+      int id = AttendeeDictionary.GLOBAL.lookup((String) other);
+      return id >= 0 && Arrays.binarySearch(attendeeIds, id) >= 0;
+    }
+
+    @Override
+    public Iterator<String> iterator() {
+      return Collections.unmodifiableList(Arrays.asList(attendees)).iterator();
+    }
+
+    @Override
+    public int size() {
+      return attendees.length;
+    }
   }
 }
@@ -0,0 +1,361 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A calendar that can be changed while it is being queried. Every change publishes a new read-only
+ * {@link Snapshot} holding the events and an {@link AttendeeIndex} over them. Readers grab the
+ * current snapshot without taking a lock and can query it for as long as they like, while writers
+ * build the next one next to it.
+ *
+ * <p>A change does not copy or reindex the calendar. The events are kept in a
+ * {@link PersistentVector} and the new snapshot's index is a copy of the previous one that shares
+ * every person's schedule, so a change only copies the few tree nodes on the path to the changed
+ * event and the schedules of the people at it. The lookups by attendee and by time are derived from
+ * the previous snapshot's in the same way. Writers are serialized with a lock; readers never wait
+ * for them.
+ */
+public final class EventStore {
+  private final Object writeLock = new Object();
+  private volatile Snapshot snapshot;
+
+  // Where each event sits in the current snapshot's list, and the id of the event at each
+  // position. Guarded by writeLock.
+  private final Map<Long, Integer> positions = new HashMap<>();
+  private final List<Long> ids = new ArrayList<>();
+  private long nextId = 1;
+
+  /**
+   * Creates an empty store.
+   */
+  public EventStore() {
+    this(Collections.<Event>emptyList());
+  }
+
+  /**
+   * Creates a store holding {@code events}, which get the ids 1 through {@code events.size()} in
+   * iteration order.
+   *
+   * @param events The events to start with. Must be non-null.
+   */
+  public EventStore(Collection<Event> events) {
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    EventTimeline eventsByTime = EventTimeline.empty();
+    for (Event event : events) {
+      eventsByTime = eventsByTime.with(nextId, event);
+      positions.put(nextId, ids.size());
+      ids.add(nextId++);
+    }
+    snapshot = new Snapshot(0, PersistentVector.of(events), new AttendeeIndex(events),
+        new AttendeeEvents(events), eventsByTime);
+  }
+
+  /**
+   * Returns the current version of the calendar. The snapshot never changes, so every read made
+   * through it sees the same calendar.
+   */
+  public Snapshot snapshot() {
+    return snapshot;
+  }
+
+  /**
+   * Adds {@code event} to the calendar and returns its id.
+   */
+  public long add(Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    synchronized (writeLock) {
+      Snapshot current = snapshot;
+      long id = nextId++;
+      PersistentVector<Event> events = current.events.append(event);
+
+      AttendeeIndex index = new AttendeeIndex(current.index);
+      index.add(event);
+
+      positions.put(id, ids.size());
+      ids.add(id);
+      snapshot = new Snapshot(current.version + 1, events, index,
+          current.eventsByAttendee.with(event), current.eventsByTime.with(id, event));
+      return id;
+    }
+  }
+
+  /**
+   * Replaces the event with the given id by {@code event}. Returns {@code false} if there is no
+   * such event.
+   */
+  public boolean update(long id, Event event) {
+    if (event == null) {
+      throw new IllegalArgumentException("event cannot be null");
+    }
+
+    synchronized (writeLock) {
+      Integer position = positions.get(id);
+      if (position == null) {
+        return false;
+      }
+
+      Snapshot current = snapshot;
+      PersistentVector<Event> events = current.events.with(position, event);
+
+      Event old = current.events.get(position);
+      AttendeeIndex index = new AttendeeIndex(current.index);
+      index.remove(old);
+      index.add(event);
+
+      snapshot = new Snapshot(current.version + 1, events, index,
+          current.eventsByAttendee.without(old).with(event),
+          current.eventsByTime.without(id, old).with(id, event));
+      return true;
+    }
+  }
+
+  /**
+   * Removes the event with the given id. Returns {@code false} if there is no such event.
+   */
+  public boolean delete(long id) {
+    synchronized (writeLock) {
+      Integer position = positions.remove(id);
+      if (position == null) {
+        return false;
+      }
+
+      // Move the last event into the hole so the list stays dense.
+      Snapshot current = snapshot;
+      int last = current.events.size() - 1;
+      PersistentVector<Event> events = current.events;
+      if (position < last) {
+        events = events.with(position, events.get(last));
+        ids.set(position, ids.get(last));
+        positions.put(ids.get(position), position);
+      }
+      events = events.dropLast();
+      ids.remove(last);
+
+      Event old = current.events.get(position);
+      AttendeeIndex index = new AttendeeIndex(current.index);
+      index.remove(old);
+
+      snapshot = new Snapshot(current.version + 1, events, index,
+          current.eventsByAttendee.without(old), current.eventsByTime.without(id, old));
+      return true;
+    }
+  }
+
+  /**
+   * One version of the calendar. Snapshots are read-only and can be shared between threads.
+   */
+  public static final class Snapshot {
+    private final long version;
+    private final PersistentVector<Event> events;
+    private final AttendeeIndex index;
+
+    // Each person's events sorted by start, and all of the events by time, both derived from the
+    // previous snapshot's.
+    private final AttendeeEvents eventsByAttendee;
+    private final EventTimeline eventsByTime;
+
+    private Snapshot(long version, PersistentVector<Event> events, AttendeeIndex index,
+        AttendeeEvents eventsByAttendee, EventTimeline eventsByTime) {
+      this.version = version;
+      this.events = events;
+      this.index = index;
+      this.eventsByAttendee = eventsByAttendee;
+      this.eventsByTime = eventsByTime;
+    }
+
+    /**
+     * Returns a number that is different for every version of the calendar, and grows with each
+     * change.
+     */
+    public long getVersion() {
+      return version;
+    }
+
+    /**
+     * Returns a read-only list of the events in the calendar, in no particular order.
+     */
+    public List<Event> getEvents() {
+      return Collections.unmodifiableList(events);
+    }
+
+    /**
+     * Returns a read-only list of the events that overlap {@code window}, sorted by start. The
+     * events are looked up in an {@link EventTimeline}, so events outside of the window are
+     * mostly not looked at.
+     */
+    public List<Event> getEvents(TimeRange window) {
+      return Collections.unmodifiableList(eventsByTime.overlapping(window));
+    }
+
+    /**
+     * Returns a read-only list of the events {@code attendee} attends, sorted by start. The list
+     * comes straight out of a per-person index, so it costs nothing to page through.
+     */
+    public List<Event> getEvents(String attendee) {
+      Event[] attended = eventsByAttendee.byAttendee.get(attendee);
+      return attended == null
+          ? Collections.<Event>emptyList()
+          : Collections.unmodifiableList(Arrays.asList(attended));
+    }
+
+    /**
+     * Returns a read-only list of the events {@code attendee} attends that overlap
+     * {@code window}, sorted by start. Only the person's events that start close enough to the
+     * window to overlap it are looked at.
+     */
+    public List<Event> getEvents(String attendee, TimeRange window) {
+      List<Event> attended = getEvents(attendee);
+      int from = firstStartAfter(attended, window.start() - eventsByAttendee.maxDuration - 1);
+      int to = firstStartAfter(attended, window.end());
+      List<Event> overlapping = new ArrayList<>();
+      for (Event event : attended.subList(from, to)) {
+        if (event.getWhen().overlaps(window)) {
+          overlapping.add(event);
+        }
+      }
+      return Collections.unmodifiableList(overlapping);
+    }
+
+    /**
+     * Returns the index of the first event in {@code sorted} that starts after {@code point}.
+     */
+    private static int firstStartAfter(List<Event> sorted, long point) {
+      int low = 0;
+      int high = sorted.size();
+      while (low < high) {
+        int mid = (low + high) >>> 1;
+        if (sorted.get(mid).getWhen().start() <= point) {
+          low = mid + 1;
+        } else {
+          high = mid;
+        }
+      }
+      return low;
+    }
+
+    /**
+     * Returns the index over the events in this snapshot. It is shared by every reader of the
+     * snapshot and must not be modified.
+     */
+    public AttendeeIndex getIndex() {
+      return index;
+    }
+  }
+
+  /**
+   * The events of a snapshot grouped by attendee, each person's sorted by start. It is read-only:
+   * a change makes a new one that shares the map nodes and the arrays of everybody who is not at
+   * the changed event, so a change costs time in the events of the people at it.
+   */
+  private static final class AttendeeEvents {
+    // The arrays are never changed once they are in the map.
+    final PersistentMap<String, Event[]> byAttendee;
+    // The longest event ever added. Bounds how far before a window an event can start and still
+    // overlap it. Never shrinks, which is safe but may make windowed lookups scan a bit more.
+    final int maxDuration;
+
+    AttendeeEvents(Collection<Event> events) {
+      Event[] sorted = events.toArray(new Event[0]);
+      Arrays.sort(sorted, Comparator.comparingInt(event -> event.getWhen().start()));
+      Map<String, List<Event>> grouped = new HashMap<>();
+      int longest = 0;
+      for (Event event : sorted) {
+        longest = Math.max(longest, event.getWhen().duration());
+        for (String attendee : event.getAttendees()) {
+          grouped.computeIfAbsent(attendee, key -> new ArrayList<>()).add(event);
+        }
+      }
+      PersistentMap<String, Event[]> map = PersistentMap.empty();
+      for (Map.Entry<String, List<Event>> entry : grouped.entrySet()) {
+        map = map.put(entry.getKey(), entry.getValue().toArray(new Event[0]));
+      }
+      byAttendee = map;
+      maxDuration = longest;
+    }
+
+    private AttendeeEvents(PersistentMap<String, Event[]> byAttendee, int maxDuration) {
+      this.byAttendee = byAttendee;
+      this.maxDuration = maxDuration;
+    }
+
+    /**
+     * Returns a copy with {@code event} added after the events of its attendees that start no
+     * later than it.
+     */
+    AttendeeEvents with(Event event) {
+      PersistentMap<String, Event[]> map = byAttendee;
+      int start = event.getWhen().start();
+      for (String attendee : event.getAttendees()) {
+        Event[] attended = map.get(attendee);
+        if (attended == null) {
+          attended = new Event[0];
+        }
+        int at = Snapshot.firstStartAfter(Arrays.asList(attended), start);
+        Event[] grown = new Event[attended.length + 1];
+        System.arraycopy(attended, 0, grown, 0, at);
+        grown[at] = event;
+        System.arraycopy(attended, at, grown, at + 1, attended.length - at);
+        map = map.put(attendee, grown);
+      }
+      return new AttendeeEvents(map, Math.max(maxDuration, event.getWhen().duration()));
+    }
+
+    /**
+     * Returns a copy without {@code event}, which must be the very instance that was added.
+     */
+    AttendeeEvents without(Event event) {
+      PersistentMap<String, Event[]> map = byAttendee;
+      int start = event.getWhen().start();
+      for (String attendee : event.getAttendees()) {
+        Event[] attended = map.get(attendee);
+        if (attended == null) {
+          continue;
+        }
+        // Events with the same start sit next to each other, so search only that run.
+        int at = Snapshot.firstStartAfter(Arrays.asList(attended), start) - 1;
+        while (at >= 0 && attended[at] != event && attended[at].getWhen().start() == start) {
+          at--;
+        }
+        if (at < 0 || attended[at] != event) {
+          continue;
+        }
+        if (attended.length == 1) {
+          map = map.remove(attendee);
+          continue;
+        }
+        Event[] shrunk = new Event[attended.length - 1];
+        System.arraycopy(attended, 0, shrunk, 0, at);
+        System.arraycopy(attended, at + 1, shrunk, at, attended.length - at - 1);
+        map = map.put(attendee, shrunk);
+      }
+      return new AttendeeEvents(map, maxDuration);
+    }
+  }
+}
@@ -0,0 +1,179 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The events of a calendar by time, for finding the ones that overlap a window as
+ * {@link TimeRange#overlaps} does, including for ranges with no duration. Unlike
+ * {@link IntervalTree}, which is built once, it is changed by making a new version of it, which is
+ * what lets {@link EventStore} keep one per snapshot.
+ *
+ * <p>The events are kept in a treap ordered by start and then by the event's id, with priorities
+ * taken from a hash of the id. Each node also knows the furthest any event below it reaches, so a
+ * lookup skips every subtree that ends before the window. A change copies the O(log n) nodes on
+ * the path to the changed event and shares the rest with the old version, and a lookup takes
+ * O(log n) time per event found. Instances are immutable and can be shared between threads.
+ */
+final class EventTimeline {
+  private static final EventTimeline EMPTY = new EventTimeline(null);
+
+  private final Node root;
+
+  private EventTimeline(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the empty timeline.
+   */
+  static EventTimeline empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Returns a copy of this timeline with {@code event} added under {@code id}, which must not be
+   * in it already.
+   */
+  EventTimeline with(long id, Event event) {
+    return new EventTimeline(insert(root, new Node(id, event, null, null)));
+  }
+
+  /**
+   * Returns a copy of this timeline without the event {@code event} that was added under
+   * {@code id}, or this timeline if there is no such event.
+   */
+  EventTimeline without(long id, Event event) {
+    Node newRoot = delete(root, event.getWhen().start(), id);
+    return newRoot == root ? this : new EventTimeline(newRoot);
+  }
+
+  /**
+   * Returns the events that overlap {@code window}, sorted by start.
+   */
+  List<Event> overlapping(TimeRange window) {
+    List<Event> found = new ArrayList<>();
+    collect(root, window, found);
+    return found;
+  }
+
+  private static void collect(Node node, TimeRange window, List<Event> found) {
+    // Only events that start by the window's start or inside the window can overlap it.
+    int lastStart = Math.max(window.start(), window.end() - 1);
+    while (node != null && node.reach > window.start()) {
+      collect(node.left, window, found);
+      if (node.start > lastStart) {
+        return;
+      }
+      if (node.event.getWhen().overlaps(window)) {
+        found.add(node.event);
+      }
+      node = node.right;
+    }
+  }
+
+  private static Node insert(Node node, Node added) {
+    if (node == null) {
+      return added;
+    }
+    if (added.comesBefore(node)) {
+      Node left = insert(node.left, added);
+      if (left.priority > node.priority) {
+        return left.with(left.left, node.with(left.right, node.right));
+      }
+      return node.with(left, node.right);
+    }
+    Node right = insert(node.right, added);
+    if (right.priority > node.priority) {
+      return right.with(node.with(node.left, right.left), right.right);
+    }
+    return node.with(node.left, right);
+  }
+
+  /**
+   * Returns {@code node} without the event at ({@code start}, {@code id}), or the same node if it
+   * is not there.
+   */
+  private static Node delete(Node node, int start, long id) {
+    if (node == null) {
+      return null;
+    }
+    if (start == node.start && id == node.id) {
+      return merge(node.left, node.right);
+    }
+    if (start < node.start || (start == node.start && id < node.id)) {
+      Node left = delete(node.left, start, id);
+      return left == node.left ? node : node.with(left, node.right);
+    }
+    Node right = delete(node.right, start, id);
+    return right == node.right ? node : node.with(node.left, right);
+  }
+
+  /**
+   * Joins two treaps where every event of {@code before} comes before every event of
+   * {@code after}.
+   */
+  private static Node merge(Node before, Node after) {
+    if (before == null) {
+      return after;
+    }
+    if (after == null) {
+      return before;
+    }
+    if (before.priority > after.priority) {
+      return before.with(before.left, merge(before.right, after));
+    }
+    return after.with(merge(before, after.left), after.right);
+  }
+
+  private static final class Node {
+    final long id;
+    final Event event;
+    final int start;
+    final int priority;
+    final Node left;
+    final Node right;
+    // One past the last minute any event in this subtree could overlap a window starting at.
+    // Events with no duration count as reaching one minute, as a window can start at them.
+    final int reach;
+
+    Node(long id, Event event, Node left, Node right) {
+      this.id = id;
+      this.event = event;
+      this.start = event.getWhen().start();
+      this.priority = Long.hashCode(id * 0x9E3779B97F4A7C15L);
+      this.left = left;
+      this.right = right;
+      int reach = Math.max(event.getWhen().end(), start + 1);
+      if (left != null) {
+        reach = Math.max(reach, left.reach);
+      }
+      if (right != null) {
+        reach = Math.max(reach, right.reach);
+      }
+      this.reach = reach;
+    }
+
+    Node with(Node left, Node right) {
+      return new Node(id, event, left, right);
+    }
+
+    boolean comesBefore(Node other) {
+      return start < other.start || (start == other.start && id < other.id);
+    }
+  }
+}
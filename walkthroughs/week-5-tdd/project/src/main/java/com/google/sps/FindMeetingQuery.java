@@ -15,76 +15,74 @@
 package com.google.sps;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
 
+/**
+ * Finds the times a meeting fits into a calendar, from a collection of
+ * events or from an index of them. The other ways of answering a meeting
+ * request have classes of their own: {@link RankedMeetingQuery},
+ * {@link FirstMeetingTimesQuery}, {@link RoomMeetingQuery},
+ * {@link RecurringMeetingQuery} and {@link SnapshotMeetingQuery}. They all
+ * gather busy times into the same {@link BusyTimes} buffers.
+ */
 public final class FindMeetingQuery {
+    /**
+     * Calendars with fewer events than this are not worth splitting up, so
+     * {@link #queryParallel} answers them sequentially. It is also the most
+     * events each parallel task scans by itself.
+     */
+    static final int PARALLEL_THRESHOLD = 8192;
+
+    private final QueryStats stats;
+
+    /**
+     * Creates a query that records how its {@link #query} calls went in
+     * {@link QueryStats#GLOBAL}.
+     */
+    public FindMeetingQuery() {
+        this(QueryStats.GLOBAL);
+    }
+
+    /**
+     * Creates a query that records how its {@link #query} calls went in
+     * {@code stats}.
+     */
+    public FindMeetingQuery(QueryStats stats) {
+        if (stats == null) {
+            throw new IllegalArgumentException("stats cannot be null");
+        }
+        this.stats = stats;
+    }
+
     /**
      * Given the duration for a meeting, a set of attendees required to 
      * attend the meeting, and a set of events each with their own respective 
      * set of attendees, find and return the set of valid meeting times. 
      * Valid meeting times are time ranges such that the meeting time is 
-     * greater than the given duration and all attendees are available 
+     * at least as long as the given duration and all attendees are available
      * during that given time. 
-     * 
-     * To find valid meeting times, we sort all events by latest end time
-     * first and then iterate through each event, effectively traveling 
-     * backwards. For each event, we check if the event's attendees overlap 
-     * with the meeting's required attendees. If they do, then we cap off our 
-     * current time range, which represents the range for which all meeting
-     * attendees are available and spans [event end time, prevEndTime). We add 
-     * it to the valid meeting times if it is longer than the given duration. 
-     * We then set prevEndTime to the start of the conflicting event and 
-     * continue on to the next event. If there are no intersecting attendees, 
-     * we move on to the next event and repeat the process.
-     *
-     * Alternative approaches include sorting by start time, which will yield
-     * the same runtime but reduce the need to reverse the resulting set of 
-     * TimeRanges at the end to accommodate the test cases. Another algorithm
-     * which does not require sorting of the events continuously cuts out 
-     * interfering event TimeRanges from an initial day-long time range while
-     * throwing away resulting ranges that are less than duration. Although we
-     * no longer require sorting, this approach retains the same worst case 
-     * runtime if each event splits a remaining range into two pieces of 
-     * valid duration. Furthermore, it is more logically complex to code.
      */
     public Collection<TimeRange> findMeetingTimes(
         Collection<Event> events,    
         Collection<String> attendees,
         long duration) {
 
-        List<Event> eventsByEndTime = new ArrayList<Event>(events);
-        Collections.sort(eventsByEndTime, Event.ORDER_BY_END_DESCENDING);
-
-        Collection<TimeRange> meetingTimes = new ArrayList<TimeRange>();
-
-        int prevEndTime = TimeRange.END_OF_DAY + 1;
-        for (Event event : eventsByEndTime) {
-            /* Check if event attendees are required to be at meeting. */
-            Collection<String> eventAttendees = event.getAttendees();
-            Collection<String> conflictAttendees = new HashSet<>(attendees);
-            conflictAttendees.retainAll(event.getAttendees());
-
-            if (!conflictAttendees.isEmpty()) { 
-                TimeRange freeTime = TimeRange.fromStartEnd(event.getWhen().end(), prevEndTime, false);
-                if (duration <= freeTime.duration()) {
-                    meetingTimes.add(freeTime);
-                } 
-                prevEndTime = (event.getWhen().start() < prevEndTime) ? event.getWhen().start() : prevEndTime;
+        BitSet wanted = BusyTimes.attendeeIds(attendees);
+        Intervals busyTimes = new Intervals();
+        for (Event event : events) {
+            if (BusyTimes.attendsAny(event, wanted)) {
+                busyTimes.add(event.getWhen());
             }
         }
-
-        /* Add unchecked TimeRange [0, prevEndTime) to list if range is valid. */
-        if (prevEndTime > 0) {
-            TimeRange firstFreeTime = TimeRange.fromStartEnd(0, prevEndTime, false);
-            meetingTimes.add(firstFreeTime);
-        }
-
-        List<TimeRange> meetingTimesList = new ArrayList<TimeRange>(meetingTimes);
-        Collections.reverse(meetingTimesList);
-        return meetingTimesList;
+        busyTimes.sort();
+        return BusyTimes.findFreeTimes(busyTimes, duration, TimeRange.WHOLE_DAY);
     }
 
     /**
@@ -95,40 +93,381 @@ public final class FindMeetingQuery {
      * which must attend, and set of optional attendees, that are preferred to 
      * attend but might not necessarily have to. If the algorithm does not find
      * any valid TimeRanges for all of the attendees, including optional ones,
-     * then it will only return TimeRanges for mandatory attendees. A drawback of
-     * this approach is that we must call the function to find suitable TimeRanges
-     * two times.
+     * then it will only return TimeRanges for mandatory attendees.
      *
-     * The algorithm runs in O(n^2) time since we have to sort the events first, 
-     * requiring O(n*log(n)) time, and then iterate through each event and find 
-     * conflicting attendees, requiring O(n*m) time, where m is the number of 
-     * attendees.
+     * The events are scanned exactly once. Each event's attendee ids are
+     * checked against bitsets of the requested attendees' ids built up
+     * front, so no strings are hashed and nothing is allocated per event,
+     * and the event's TimeRange is filed as a mandatory or optional busy
+     * time. Events nobody in the request attends are dropped right away,
+     * so only the busy times of the requested people are ever sorted. The
+     * optional fallback then reuses the mandatory busy times instead of
+     * scanning the events a second time.
+     *
+     * The algorithm runs in O(n*a + b*log(b)) time, where n is the number of
+     * events, a is the number of attendees per event and b is the number of
+     * events that involve a requested attendee.
      */
     public Collection<TimeRange> query(Collection<Event> events, MeetingRequest request) {
-        Collection<TimeRange> meetingTimes = new ArrayList<TimeRange>();
-        Collection<String> mandatoryAttendees = request.getAttendees();
-        Collection<String> optionalAttendees = request.getOptionalAttendees();
-        Collection<String> allAttendees = new ArrayList<>(mandatoryAttendees);
-        allAttendees.addAll(optionalAttendees);
-        
-        long duration = request.getDuration();
-        if (duration < 0 || duration > TimeRange.WHOLE_DAY.duration()) {
-            return meetingTimes; // return empty if invalid duration
+        return query(events, request, TimeRange.WHOLE_DAY);
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest)}, but searches the
+     * given horizon instead of a single day. The horizon and the events are
+     * expected to use the same time base, typically minutes since the epoch
+     * (see {@link TimeRange#fromDays}), so a search over several weeks is a
+     * single sweep over the busy times rather than one query per day. Events
+     * that do not overlap the horizon are skipped before their attendees are
+     * even looked at, and the returned ranges are clipped to the horizon.
+     */
+    public Collection<TimeRange> query(
+        Collection<Event> events,
+        MeetingRequest request,
+        TimeRange horizon) {
+
+        return BusyTimes.findMeetingTimes(stats, request, horizon,
+            Collections.emptyMap(), busy -> busy.addEvents(events, request, horizon)).times;
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but
+     * looks up the events that overlap the horizon in an interval tree
+     * instead of checking every event, so events far outside the horizon
+     * cost nothing.
+     */
+    public Collection<TimeRange> query(
+        IntervalTree<Event> events,
+        MeetingRequest request,
+        TimeRange horizon) {
+
+        return query(events.overlapping(horizon), request, horizon);
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest)}, but reads the busy
+     * times of the requested attendees straight out of an index. Only the
+     * schedules of the people in the request are touched, so the cost is
+     * proportional to their own events rather than to the whole calendar.
+     * Each person's busy times are already sorted, which the final sort
+     * takes advantage of by merging the presorted runs.
+     */
+    public Collection<TimeRange> query(AttendeeIndex index, MeetingRequest request) {
+        return query(index, request, TimeRange.WHOLE_DAY);
+    }
+
+    /**
+     * Same as {@link #query(AttendeeIndex, MeetingRequest)}, but searches the
+     * given horizon. Each person's busy times are narrowed down to the ones
+     * that can overlap the horizon with a binary search, so busy times weeks
+     * away from the horizon cost nothing.
+     */
+    public Collection<TimeRange> query(
+        AttendeeIndex index,
+        MeetingRequest request,
+        TimeRange horizon) {
+
+        return BusyTimes.findMeetingTimes(stats, request, horizon,
+            Collections.emptyMap(), busy -> busy.addEvents(index, request, horizon)).times;
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest)}, but only proposes
+     * times within the working hours of the attendees, mandatory ones
+     * always and optional ones unless they are dropped. People without
+     * working hours are available around the clock.
+     *
+     * Working hours are not checked against the free ranges afterwards.
+     * Each person's time outside them is filed as busy times for the
+     * horizon before the sweep, the same way as their events, so times
+     * outside working hours are never generated in the first place.
+     */
+    public Collection<TimeRange> query(
+        Collection<Event> events,
+        MeetingRequest request,
+        Map<String, WorkingHours> workingHours) {
+
+        return query(events, request, workingHours, TimeRange.WHOLE_DAY);
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest, Map)}, but searches
+     * the given horizon instead of a single day, which needs to be on the
+     * same time base as the working hours' UTC offsets.
+     */
+    public Collection<TimeRange> query(
+        Collection<Event> events,
+        MeetingRequest request,
+        Map<String, WorkingHours> workingHours,
+        TimeRange horizon) {
+
+        return BusyTimes.findMeetingTimes(stats, request, horizon,
+            workingHours, busy -> busy.addEvents(events, request, horizon)).times;
+    }
+
+    /**
+     * Same as {@link #query(Collection, MeetingRequest, Map)}, but reads the
+     * busy times of the requested attendees out of an index.
+     */
+    public Collection<TimeRange> query(
+        AttendeeIndex index,
+        MeetingRequest request,
+        Map<String, WorkingHours> workingHours) {
+
+        return query(index, request, workingHours, TimeRange.WHOLE_DAY);
+    }
+
+    /**
+     * Same as {@link #query(AttendeeIndex, MeetingRequest, Map)}, but
+     * searches the given horizon instead of a single day.
+     */
+    public Collection<TimeRange> query(
+        AttendeeIndex index,
+        MeetingRequest request,
+        Map<String, WorkingHours> workingHours,
+        TimeRange horizon) {
+
+        return BusyTimes.findMeetingTimes(stats, request, horizon,
+            workingHours, busy -> busy.addEvents(index, request, horizon)).times;
+    }
+
+    /**
+     * Answers a batch of requests against one shared snapshot of the events.
+     * The events are indexed once, and then every request is answered from
+     * that index as in {@link #query(AttendeeIndex, MeetingRequest)}. The
+     * answers are returned in the same order as the requests.
+     */
+    public List<Collection<TimeRange>> queryAll(
+        Collection<Event> events,
+        List<MeetingRequest> requests) {
+
+        return queryAll(new AttendeeIndex(events), requests);
+    }
+
+    /**
+     * Answers a batch of requests against an existing index. The index is
+     * only read, so the requests are spread across cores with a parallel
+     * stream. The index must not be modified until this returns. Working
+     * hours are not taken into account; answer such requests one at a time
+     * with {@link #query(AttendeeIndex, MeetingRequest, Map, TimeRange)}.
+     */
+    public List<Collection<TimeRange>> queryAll(
+        AttendeeIndex index,
+        List<MeetingRequest> requests) {
+
+        return requests.parallelStream()
+            .map(request -> query(index, request))
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Parallel mode of {@link #query(Collection, MeetingRequest)} for very
+     * large calendars. The answer is always the same as the sequential one.
+     */
+    public Collection<TimeRange> queryParallel(
+        Collection<Event> events,
+        MeetingRequest request) {
+
+        return queryParallel(events, request, TimeRange.WHOLE_DAY);
+    }
+
+    /**
+     * Same as {@link #queryParallel(Collection, MeetingRequest)}, but
+     * searches the given horizon instead of a single day.
+     *
+     * The events are split into slices that are scanned on the common
+     * ForkJoinPool. Each slice sorts the busy times it finds and merges the
+     * overlapping ones into disjoint busy blocks, once for the mandatory
+     * attendees and once for everybody. Joining two slices merges their
+     * blocks in linear time, so the final sweep only sees a few blocks. Two
+     * busy times are merged only if the sweep would not find a free range
+     * between them, which keeps the result identical to {@link #query}.
+     * Calendars with fewer than {@link #PARALLEL_THRESHOLD} events are
+     * answered by {@link #query} directly.
+     */
+    public Collection<TimeRange> queryParallel(
+        Collection<Event> events,
+        MeetingRequest request,
+        TimeRange horizon) {
+
+        return queryParallel(events, request, Collections.emptyMap(), horizon);
+    }
+
+    /**
+     * Same as {@link #queryParallel(Collection, MeetingRequest, TimeRange)},
+     * but only proposes times within the working hours of the attendees, as
+     * {@link #query(Collection, MeetingRequest, Map, TimeRange)} does. The
+     * time outside working hours is merged into the busy blocks of all the
+     * slices once they are joined.
+     */
+    public Collection<TimeRange> queryParallel(
+        Collection<Event> events,
+        MeetingRequest request,
+        Map<String, WorkingHours> workingHours,
+        TimeRange horizon) {
+
+        if (events.size() < PARALLEL_THRESHOLD) {
+            return query(events, request, workingHours, horizon);
         }
 
-        if (events.isEmpty() || allAttendees.isEmpty()) {
-            meetingTimes.add(TimeRange.WHOLE_DAY);
-            return meetingTimes; // no attendees or events
+        return BusyTimes.search(request, horizon, (unused, duration) -> {
+            Event[] eventArray = events.toArray(new Event[0]);
+            BusyBlocks busy = ForkJoinPool.commonPool().invoke(new BusyBlocksTask(
+                eventArray, 0, eventArray.length,
+                BusyTimes.attendeeIds(request.getAttendees()),
+                BusyTimes.attendeeIds(request.getOptionalAttendees()), horizon));
+
+            Intervals mandatoryOff = new Intervals();
+            BusyTimes.addUnavailableIntervals(
+                workingHours, request.getAttendees(), horizon, mandatoryOff);
+            mandatoryOff.sort();
+            Intervals allOff = new Intervals(mandatoryOff);
+            BusyTimes.addUnavailableIntervals(
+                workingHours, request.getOptionalAttendees(), horizon, allOff);
+            allOff.sort();
+            Intervals mandatory = Intervals.mergeBlocks(busy.mandatory, mandatoryOff);
+            Intervals all = Intervals.mergeBlocks(busy.all, allOff);
+
+            /* Same fallback as the sweep: drop optional attendees if nothing fits. */
+            List<TimeRange> meetingTimes =
+                BusyTimes.findFreeTimes(all, duration, horizon);
+            if (!meetingTimes.isEmpty()) {
+                return meetingTimes;
+            }
+            return BusyTimes.findFreeTimes(mandatory, duration, horizon);
+        });
+    }
+
+    /**
+     * The busy blocks of the mandatory attendees and of all attendees in
+     * one slice of the events, each sorted by start and disjoint.
+     */
+    private static final class BusyBlocks {
+        final Intervals mandatory;
+        final Intervals all;
+
+        BusyBlocks(Intervals mandatory, Intervals all) {
+            this.mandatory = mandatory;
+            this.all = all;
+        }
+    }
+
+    /**
+     * Finds the busy blocks in {@code events[from, to)}, splitting the slice
+     * in half until it is no bigger than {@link #PARALLEL_THRESHOLD}.
+     */
+    private static final class BusyBlocksTask extends RecursiveTask<BusyBlocks> {
+        private final Event[] events;
+        private final int from;
+        private final int to;
+        private final BitSet mandatoryAttendees;
+        private final BitSet optionalAttendees;
+        private final TimeRange horizon;
+
+        BusyBlocksTask(Event[] events, int from, int to, BitSet mandatoryAttendees,
+            BitSet optionalAttendees, TimeRange horizon) {
+            this.events = events;
+            this.from = from;
+            this.to = to;
+            this.mandatoryAttendees = mandatoryAttendees;
+            this.optionalAttendees = optionalAttendees;
+            this.horizon = horizon;
+        }
+
+        @Override
+        protected BusyBlocks compute() {
+            if (to - from > PARALLEL_THRESHOLD) {
+                int mid = (from + to) >>> 1;
+                BusyBlocksTask left = new BusyBlocksTask(events, from, mid,
+                    mandatoryAttendees, optionalAttendees, horizon);
+                left.fork();
+                BusyBlocks right = new BusyBlocksTask(events, mid, to,
+                    mandatoryAttendees, optionalAttendees, horizon).compute();
+                BusyBlocks joined = left.join();
+                return new BusyBlocks(Intervals.mergeBlocks(joined.mandatory, right.mandatory),
+                    Intervals.mergeBlocks(joined.all, right.all));
+            }
+
+            Intervals mandatory = new Intervals();
+            Intervals all = new Intervals();
+            for (int i = from; i < to; i++) {
+                Event event = events[i];
+                if (!event.getWhen().overlaps(horizon)) {
+                    continue;
+                }
+                if (BusyTimes.attendsAny(event, mandatoryAttendees)) {
+                    mandatory.add(event.getWhen());
+                    all.add(event.getWhen());
+                } else if (BusyTimes.attendsAny(event, optionalAttendees)) {
+                    all.add(event.getWhen());
+                }
+            }
+            mandatory.sort();
+            all.sort();
+            return new BusyBlocks(Intervals.mergeBlocks(mandatory, new Intervals(0)),
+                Intervals.mergeBlocks(all, new Intervals(0)));
+        }
+    }
+
+    /**
+     * Bitmap mode of {@link #query(AttendeeIndex, MeetingRequest)}. Instead
+     * of sorting and merging busy times, the per-minute busy bitmaps that the
+     * index keeps for every attendee are OR-ed together, and the free ranges
+     * are the runs of clear bits that are at least as long as the meeting. A
+     * day is only 1440 bits, so this takes a few hundred word operations per
+     * query regardless of how many events each attendee has. Events with no
+     * duration set no bits, so unlike the sweep they do not split a free
+     * range in two. Bitmaps only cover a single day, so busy times outside
+     * of the day are ignored; use
+     * {@link #query(AttendeeIndex, MeetingRequest, TimeRange)} for longer
+     * horizons. Working hours are not taken into account either.
+     */
+    public Collection<TimeRange> queryBitmap(AttendeeIndex index, MeetingRequest request) {
+        return BusyTimes.search(request, TimeRange.WHOLE_DAY, (unused, duration) -> {
+            BitSet mandatoryBusy = new BitSet(TimeRange.WHOLE_DAY.duration());
+            for (String attendee : request.getAttendees()) {
+                orBusyBitmap(mandatoryBusy, index, attendee);
+            }
+            BitSet allBusy = (BitSet) mandatoryBusy.clone();
+            for (String attendee : request.getOptionalAttendees()) {
+                orBusyBitmap(allBusy, index, attendee);
+            }
+
+            /* Same fallback as the sweep: drop optional attendees if nothing fits. */
+            if (!allBusy.equals(mandatoryBusy)) {
+                List<TimeRange> meetingTimes = findFreeTimes(allBusy, duration);
+                if (!meetingTimes.isEmpty()) {
+                    return meetingTimes;
+                }
+            }
+            return findFreeTimes(mandatoryBusy, duration);
+        });
+    }
+
+    private static void orBusyBitmap(BitSet busy, AttendeeIndex index, String attendee) {
+        BitSet attendeeBusy = index.getBusyBitmap(attendee);
+        if (attendeeBusy != null) {
+            busy.or(attendeeBusy);
         }
+    }
 
-        /** 
-         * If valid TimeRanges for all attendees exist, return them.
-         * Otherwise, only find TimeRanges for mandatory attendees.
-         */
-        meetingTimes = findMeetingTimes(events, allAttendees, duration);
-        if (!meetingTimes.isEmpty()) {
-            return meetingTimes;
+    /**
+     * Returns every run of clear bits in {@code busy} within the day that is
+     * at least {@code duration} minutes long, in ascending order.
+     */
+    private static List<TimeRange> findFreeTimes(BitSet busy, long duration) {
+        List<TimeRange> freeTimes = new ArrayList<>();
+        int freeStart = busy.nextClearBit(TimeRange.START_OF_DAY);
+        while (freeStart <= TimeRange.END_OF_DAY) {
+            int freeEnd = busy.nextSetBit(freeStart);
+            if (freeEnd < 0 || freeEnd > TimeRange.END_OF_DAY) {
+                freeEnd = TimeRange.END_OF_DAY + 1;
+            }
+            if (freeEnd - freeStart >= duration) {
+                freeTimes.add(TimeRange.fromStartEnd(freeStart, freeEnd, false));
+            }
+            freeStart = busy.nextClearBit(freeEnd);
         }
-        return findMeetingTimes(events, mandatoryAttendees, duration);
-    }   
+        return freeTimes;
+    }
 }
@@ -0,0 +1,158 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Returns the first {@code n} meeting times that {@link FindMeetingQuery} would return, without
+ * working out the rest of the horizon. Most callers only need the earliest slot or a few of them,
+ * so rather than sorting every busy time, the busy times of the requested attendees are heapified
+ * in linear time and popped in start order only until {@code n} free ranges are found. For short
+ * meetings early in the day that is a handful of busy times. The same optional attendee fallback
+ * as {@link FindMeetingQuery} applies.
+ */
+public final class FirstMeetingTimesQuery {
+  /** Returns the first {@code n} meeting times for {@code request} within a single day. */
+  public List<TimeRange> findFirst(Collection<Event> events, MeetingRequest request, int n) {
+    return findFirst(events, request, n, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #findFirst(Collection, MeetingRequest, int)}, but searches the given horizon
+   * instead of a single day.
+   */
+  public List<TimeRange> findFirst(
+      Collection<Event> events, MeetingRequest request, int n, TimeRange horizon) {
+    return findFirst(events, request, n, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #findFirst(Collection, MeetingRequest, int, TimeRange)}, but only proposes
+   * times within the working hours of the attendees, as
+   * {@link FindMeetingQuery#query(Collection, MeetingRequest, Map, TimeRange)} does.
+   */
+  public List<TimeRange> findFirst(Collection<Event> events, MeetingRequest request, int n,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    checkCount(n);
+    return BusyTimes.search(request, horizon, (busy, duration) -> {
+      busy.addEvents(events, request, horizon);
+      busy.addUnavailableIntervals(workingHours, request, horizon);
+      return findFirstMeetingTimes(busy, duration, n, horizon);
+    });
+  }
+
+  /**
+   * Same as {@link #findFirst(Collection, MeetingRequest, int, TimeRange)}, but reads the busy
+   * times of the requested attendees out of an index.
+   */
+  public List<TimeRange> findFirst(
+      AttendeeIndex index, MeetingRequest request, int n, TimeRange horizon) {
+    return findFirst(index, request, n, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #findFirst(AttendeeIndex, MeetingRequest, int, TimeRange)}, but only proposes
+   * times within the working hours of the attendees.
+   */
+  public List<TimeRange> findFirst(AttendeeIndex index, MeetingRequest request, int n,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    checkCount(n);
+    return BusyTimes.search(request, horizon, (busy, duration) -> {
+      busy.addEvents(index, request, horizon);
+      busy.addUnavailableIntervals(workingHours, request, horizon);
+      return findFirstMeetingTimes(busy, duration, n, horizon);
+    });
+  }
+
+  private static void checkCount(int n) {
+    if (n <= 0) {
+      throw new IllegalArgumentException("n must be positive");
+    }
+  }
+
+  /**
+   * Early terminating version of {@link BusyTimes#findMeetingTimes(long, TimeRange)} that stops
+   * after {@code n} free ranges. Instead of being sorted, the buffers are heapified in place.
+   */
+  private static List<TimeRange> findFirstMeetingTimes(
+      BusyTimes busy, long duration, int n, TimeRange horizon) {
+    Intervals mandatory = busy.mandatory;
+    Intervals optional = busy.optional;
+    if (!optional.isEmpty()) {
+      optional.addAll(mandatory);
+      List<TimeRange> meetingTimes =
+          findFirstFreeTimes(optional.array(), optional.size(), duration, n, horizon);
+      if (!meetingTimes.isEmpty()) {
+        return meetingTimes;
+      }
+    }
+    return findFirstFreeTimes(mandatory.array(), mandatory.size(), duration, n, horizon);
+  }
+
+  /**
+   * Same sweep as {@link BusyTimes#findFreeTimes}, except that the busy times are heapified and
+   * popped in start order, so only as many of them are ordered as it takes to find {@code n} free
+   * ranges. The first {@code size} entries of {@code heap} are used and reordered in place.
+   */
+  private static List<TimeRange> findFirstFreeTimes(
+      long[] heap, int size, long duration, int n, TimeRange horizon) {
+    for (int i = size / 2 - 1; i >= 0; i--) {
+      siftDown(heap, i, size);
+    }
+
+    List<TimeRange> freeTimes = new ArrayList<>();
+    int freeStart = horizon.start();
+    while (size > 0 && freeTimes.size() < n && freeStart < horizon.end()) {
+      long busy = heap[0];
+      heap[0] = heap[--size];
+      siftDown(heap, 0, size);
+
+      int busyStart = Math.min(Intervals.start(busy), horizon.end());
+      if (busyStart > freeStart && busyStart - freeStart >= duration) {
+        freeTimes.add(TimeRange.fromStartEnd(freeStart, busyStart, false));
+      }
+      freeStart = Math.max(freeStart, Intervals.end(busy));
+    }
+
+    // Add the remaining TimeRange [freeStart, horizon end) if it is valid.
+    if (freeTimes.size() < n && freeStart < horizon.end()
+        && horizon.end() - freeStart >= duration) {
+      freeTimes.add(TimeRange.fromStartEnd(freeStart, horizon.end(), false));
+    }
+    return freeTimes;
+  }
+
+  /** Restores the min-heap property of {@code heap[0, size)} below index {@code i}. */
+  private static void siftDown(long[] heap, int i, int size) {
+    long value = heap[i];
+    while (2 * i + 1 < size) {
+      int child = 2 * i + 1;
+      if (child + 1 < size && heap[child + 1] < heap[child]) {
+        child++;
+      }
+      if (heap[child] >= value) {
+        break;
+      }
+      heap[i] = heap[child];
+      i = child;
+    }
+    heap[i] = value;
+  }
+}
@@ -0,0 +1,253 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.IntConsumer;
+
+/**
+ * A read-only index of items by {@code TimeRange} that finds the items at a point in time, the
+ * items overlapping a range, and the items in or around a range without looking at the others. The
+ * answers match {@link TimeRange#contains(int)}, {@link TimeRange#overlaps} and
+ * {@link TimeRange#contains(TimeRange)}, including for ranges with no duration.
+ *
+ * <p>The items are kept in an array sorted by start, and the ranges with a duration also form a
+ * centered interval tree. Each node of the tree has a center point and keeps the ranges that
+ * contain it, sorted both by start and by end, with the ranges entirely before and entirely after
+ * the center in its two subtrees. A point lookup walks one path down the tree and only reads ranges
+ * it returns, so it takes O(log n + k) time for k results. A range [start, end) overlaps a window
+ * exactly when it contains the window's start or starts inside the window, so overlap lookups are a
+ * point lookup plus a binary search in the sorted array, and also take O(log n + k) time.
+ *
+ * @param <T> The type of the items.
+ */
+public final class IntervalTree<T> {
+  private final Object[] items;
+  private final int[] starts;
+  private final int[] ends;
+  private final Node root;
+
+  /**
+   * Builds the index in O(n log n) time.
+   *
+   * @param items The items to index. Must be non-null.
+   * @param rangeOf Returns the range of an item.
+   */
+  public IntervalTree(Collection<? extends T> items, Function<? super T, TimeRange> rangeOf) {
+    if (items == null) {
+      throw new IllegalArgumentException("items cannot be null");
+    }
+
+    // Sort the items by start, using the packed start and position so no comparator is needed.
+    Object[] unsorted = items.toArray();
+    long[] order = new long[unsorted.length];
+    for (int i = 0; i < unsorted.length; i++) {
+      @SuppressWarnings("unchecked")
+      TimeRange range = rangeOf.apply((T) unsorted[i]);
+      order[i] = ((long) range.start() << 32) | i;
+    }
+    Arrays.sort(order);
+
+    this.items = new Object[unsorted.length];
+    this.starts = new int[unsorted.length];
+    this.ends = new int[unsorted.length];
+    int[] withDuration = new int[unsorted.length];
+    int count = 0;
+    for (int i = 0; i < order.length; i++) {
+      this.items[i] = unsorted[(int) order[i]];
+      TimeRange range = rangeOf.apply(item(i));
+      starts[i] = range.start();
+      ends[i] = range.end();
+      if (range.duration() > 0) {
+        withDuration[count++] = i;
+      }
+    }
+    this.root = build(Arrays.copyOf(withDuration, count));
+  }
+
+  /**
+   * Returns the number of items in the index.
+   */
+  public int size() {
+    return items.length;
+  }
+
+  /**
+   * Returns the items whose range contains {@code point}, in no particular order.
+   */
+  public List<T> stabbing(int point) {
+    List<T> found = new ArrayList<>();
+    stab(point, i -> found.add(item(i)));
+    return found;
+  }
+
+  /**
+   * Returns the items whose range overlaps {@code window}, in no particular order.
+   */
+  public List<T> overlapping(TimeRange window) {
+    List<T> found = new ArrayList<>();
+    stab(window.start(), i -> found.add(item(i)));
+
+    // The rest start inside the window. Those starting at its very start with a duration were
+    // already found above.
+    for (int i = firstStartAtOrAfter(window.start()); i < starts.length && starts[i] < window.end();
+         i++) {
+      if (starts[i] > window.start() || ends[i] <= window.start()) {
+        found.add(item(i));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the items whose range is contained in {@code window}, sorted by start. Takes
+   * O(log n + k + c) time, where c is the number of ranges that start inside the window and end
+   * after it.
+   */
+  public List<T> containedIn(TimeRange window) {
+    List<T> found = new ArrayList<>();
+    if (window.duration() <= 0) {
+      return found;
+    }
+    for (int i = firstStartAtOrAfter(window.start()); i < starts.length && starts[i] < window.end();
+         i++) {
+      if (ends[i] <= window.end()) {
+        found.add(item(i));
+      }
+    }
+    return found;
+  }
+
+  /**
+   * Returns the items whose range contains all of {@code window}, in no particular order. Takes
+   * O(log n + k + c) time, where c is the number of ranges that contain the window's start but end
+   * before its end.
+   */
+  public List<T> containing(TimeRange window) {
+    List<T> found = new ArrayList<>();
+    stab(window.start(), i -> {
+      if (ends[i] >= window.end()) {
+        found.add(item(i));
+      }
+    });
+    return found;
+  }
+
+  /**
+   * Passes the position of every range with a duration that contains {@code point} to
+   * {@code found}.
+   */
+  private void stab(int point, IntConsumer found) {
+    Node node = root;
+    while (node != null) {
+      if (point < node.center) {
+        // Every range here ends after the center, so it contains the point if it starts by it.
+        for (int i = 0; i < node.byStart.length && starts[node.byStart[i]] <= point; i++) {
+          found.accept(node.byStart[i]);
+        }
+        node = node.left;
+      } else {
+        // Every range here starts by the center, so it contains the point if it ends after it.
+        for (int i = 0; i < node.byEnd.length && ends[node.byEnd[i]] > point; i++) {
+          found.accept(node.byEnd[i]);
+        }
+        node = node.right;
+      }
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private T item(int index) {
+    return (T) items[index];
+  }
+
+  private int firstStartAtOrAfter(int point) {
+    int low = 0;
+    int high = starts.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (starts[mid] < point) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Builds the subtree over the ranges at {@code indices}, which are positions in the sorted
+   * arrays in ascending order, so the ranges are sorted by start too.
+   */
+  private Node build(int[] indices) {
+    if (indices.length == 0) {
+      return null;
+    }
+
+    // The start of the middle range is always inside it, so every node keeps at least one range
+    // and each side gets at most half of them.
+    int center = starts[indices[indices.length / 2]];
+    int[] left = new int[indices.length];
+    int[] middle = new int[indices.length];
+    int[] right = new int[indices.length];
+    int leftCount = 0;
+    int middleCount = 0;
+    int rightCount = 0;
+    for (int i : indices) {
+      if (ends[i] <= center) {
+        left[leftCount++] = i;
+      } else if (starts[i] > center) {
+        right[rightCount++] = i;
+      } else {
+        middle[middleCount++] = i;
+      }
+    }
+
+    int[] byStart = Arrays.copyOf(middle, middleCount);
+    long[] byEnd = new long[middleCount];
+    for (int i = 0; i < middleCount; i++) {
+      byEnd[i] = ((long) ends[byStart[i]] << 32) | byStart[i];
+    }
+    Arrays.sort(byEnd);
+    int[] byEndDescending = new int[middleCount];
+    for (int i = 0; i < middleCount; i++) {
+      byEndDescending[i] = (int) byEnd[middleCount - 1 - i];
+    }
+
+    return new Node(center, byStart, byEndDescending,
+        build(Arrays.copyOf(left, leftCount)), build(Arrays.copyOf(right, rightCount)));
+  }
+
+  private static final class Node {
+    final int center;
+    // Positions of the ranges that contain the center, by start ascending and by end descending.
+    final int[] byStart;
+    final int[] byEnd;
+    final Node left;
+    final Node right;
+
+    Node(int center, int[] byStart, int[] byEnd, Node left, Node right) {
+      this.center = center;
+      this.byStart = byStart;
+      this.byEnd = byEnd;
+      this.left = left;
+      this.right = right;
+    }
+  }
+}
@@ -0,0 +1,226 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A growable list of [start, end) intervals packed into a {@code long[]}, with the start in the
+ * high 32 bits and the end in the low 32 bits. Sorting the longs sorts the intervals by start
+ * without an object per interval, so the query engine works on these and only creates
+ * {@code TimeRange}s for the ranges it hands back to callers. Instances are not thread-safe.
+ */
+final class Intervals {
+  private long[] packed;
+  private int size;
+
+  /**
+   * Creates an empty list.
+   */
+  Intervals() {
+    this(16);
+  }
+
+  /**
+   * Creates an empty list with room for {@code capacity} intervals before it has to grow.
+   */
+  Intervals(int capacity) {
+    packed = new long[Math.max(capacity, 1)];
+  }
+
+  /**
+   * Creates a copy of {@code other} with no spare room.
+   */
+  Intervals(Intervals other) {
+    packed = Arrays.copyOf(other.packed, Math.max(other.size, 1));
+    size = other.size;
+  }
+
+  /**
+   * Packs [start, end) into a single long.
+   */
+  static long pack(int start, int end) {
+    return ((long) start << 32) | (end & 0xFFFFFFFFL);
+  }
+
+  /**
+   * Returns the start of a packed interval.
+   */
+  static int start(long interval) {
+    return (int) (interval >> 32);
+  }
+
+  /**
+   * Returns the exclusive end of a packed interval.
+   */
+  static int end(long interval) {
+    return (int) interval;
+  }
+
+  int size() {
+    return size;
+  }
+
+  boolean isEmpty() {
+    return size == 0;
+  }
+
+  /**
+   * Returns the packed interval at {@code index}.
+   */
+  long get(int index) {
+    return packed[index];
+  }
+
+  /**
+   * Returns the backing array. Only the first {@link #size()} entries are in use. Callers may
+   * reorder those entries in place, for example to heapify them.
+   */
+  long[] array() {
+    return packed;
+  }
+
+  /**
+   * Removes every interval while keeping the allocated room, so the list can be reused.
+   */
+  void clear() {
+    size = 0;
+  }
+
+  void add(TimeRange range) {
+    add(pack(range.start(), range.end()));
+  }
+
+  void add(long interval) {
+    if (size == packed.length) {
+      packed = Arrays.copyOf(packed, size * 2);
+    }
+    packed[size++] = interval;
+  }
+
+  void addAll(Intervals other) {
+    addAll(other, 0, other.size);
+  }
+
+  /**
+   * Appends the intervals {@code other[from, to)}.
+   */
+  void addAll(Intervals other, int from, int to) {
+    int count = to - from;
+    if (size + count > packed.length) {
+      packed = Arrays.copyOf(packed, Math.max(size + count, size * 2));
+    }
+    System.arraycopy(other.packed, from, packed, size, count);
+    size += count;
+  }
+
+  /**
+   * Sorts the intervals by start.
+   */
+  void sort() {
+    Arrays.sort(packed, 0, size);
+  }
+
+  /**
+   * Inserts {@code interval} into a list sorted by start, after any intervals with the same start.
+   */
+  void insertSorted(long interval) {
+    int index = firstStartAfter(start(interval));
+    add(interval);
+    System.arraycopy(packed, index, packed, index + 1, size - index - 1);
+    packed[index] = interval;
+  }
+
+  /**
+   * Removes one interval equal to {@code interval} from a list sorted by start. Returns
+   * {@code true} if an interval was removed.
+   */
+  boolean removeSorted(long interval) {
+    // Intervals with the same start sit next to each other, so search only that run.
+    int start = start(interval);
+    for (int i = firstStartAfter(start) - 1; i >= 0 && start(packed[i]) == start; i--) {
+      if (packed[i] == interval) {
+        System.arraycopy(packed, i + 1, packed, i, size - i - 1);
+        size--;
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Returns the index of the first interval in a list sorted by start that starts after
+   * {@code point}, or {@link #size()} if there is none.
+   */
+  int firstStartAfter(int point) {
+    int low = 0;
+    int high = size;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (start(packed[mid]) <= point) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Merges two lists sorted by start into disjoint blocks sorted by start. An interval joins the
+   * block before it if it starts no later than the block ends, since a sweep would not find a free
+   * range between them either. Intervals with no duration that start after a gap stay blocks of
+   * their own, as they split free ranges in a sweep.
+   */
+  static Intervals mergeBlocks(Intervals a, Intervals b) {
+    Intervals blocks = new Intervals(a.size + b.size);
+    int i = 0;
+    int j = 0;
+    int blockStart = 0;
+    int blockEnd = 0;
+    boolean open = false;
+    while (i < a.size || j < b.size) {
+      long interval = j == b.size || (i < a.size && a.packed[i] <= b.packed[j])
+          ? a.packed[i++] : b.packed[j++];
+      if (open && start(interval) <= blockEnd) {
+        blockEnd = Math.max(blockEnd, end(interval));
+        continue;
+      }
+      if (open) {
+        blocks.add(pack(blockStart, blockEnd));
+      }
+      blockStart = start(interval);
+      blockEnd = end(interval);
+      open = true;
+    }
+    if (open) {
+      blocks.add(pack(blockStart, blockEnd));
+    }
+    return blocks;
+  }
+
+  /**
+   * Returns the intervals {@code [from, to)} as a new list of {@code TimeRange}s.
+   */
+  List<TimeRange> toTimeRanges(int from, int to) {
+    List<TimeRange> ranges = new ArrayList<>(to - from);
+    for (int i = from; i < to; i++) {
+      ranges.add(TimeRange.fromStartEnd(start(packed[i]), end(packed[i]), false));
+    }
+    return ranges;
+  }
+}
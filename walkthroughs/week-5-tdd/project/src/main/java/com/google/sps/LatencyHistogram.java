@@ -0,0 +1,140 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of non-negative values, such as latencies in nanoseconds, laid out like
+ * HdrHistogram: values are counted in buckets whose width doubles with every power of two, and each
+ * power of two is split into {@value #SUB_BUCKETS} equal sub-buckets. Every value up to
+ * {@code Long.MAX_VALUE} fits into a fixed array of counters, and the value reported for a
+ * percentile is within about 3% of the real one. Recording a value is a few bit operations and an
+ * atomic increment, so it is cheap enough for the hot path. Instances are thread-safe.
+ */
+public final class LatencyHistogram {
+  private static final int SUB_BUCKET_BITS = 5;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+
+  // Values below SUB_BUCKETS each have their own counter. Above that, counter (shift + 1) *
+  // SUB_BUCKETS + i counts the values whose top SUB_BUCKET_BITS + 1 bits are SUB_BUCKETS + i once
+  // shifted right by shift.
+  private final AtomicLongArray counts =
+      new AtomicLongArray((Long.SIZE - SUB_BUCKET_BITS) * SUB_BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAccumulator max = new LongAccumulator(Math::max, 0);
+
+  /**
+   * Counts one occurrence of {@code value}. Negative values, which a clock that went backwards can
+   * produce, are counted as 0.
+   */
+  public void record(long value) {
+    long clamped = Math.max(value, 0);
+    counts.incrementAndGet(indexOf(clamped));
+    total.add(clamped);
+    max.accumulate(clamped);
+  }
+
+  /**
+   * Returns the number of values recorded.
+   */
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < counts.length(); i++) {
+      count += counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Returns the mean of the values recorded, or 0 if there are none.
+   */
+  public double getMean() {
+    long count = getCount();
+    return count == 0 ? 0 : (double) total.sum() / count;
+  }
+
+  /**
+   * Returns the largest value recorded, or 0 if there are none.
+   */
+  public long getMax() {
+    return max.get();
+  }
+
+  /**
+   * Returns a value that at least {@code percentile} percent of the values recorded are at most,
+   * rounded up to the end of its bucket and never more than {@link #getMax}, or 0 if there are no
+   * values.
+   */
+  public long getValueAtPercentile(double percentile) {
+    if (percentile < 0 || percentile > 100) {
+      throw new IllegalArgumentException("percentile must be between 0 and 100");
+    }
+
+    // Copy the counts first, so the rank is taken against the same counts that are walked.
+    long[] snapshot = new long[counts.length()];
+    long count = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i] = counts.get(i);
+      count += snapshot[i];
+    }
+    if (count == 0) {
+      return 0;
+    }
+
+    long rank = Math.max(1, (long) Math.ceil(percentile / 100 * count));
+    long seen = 0;
+    for (int i = 0; i < snapshot.length; i++) {
+      seen += snapshot[i];
+      if (seen >= rank) {
+        return Math.min(highestValueAt(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  /**
+   * Forgets every value recorded so far. Values recorded meanwhile may or may not be kept.
+   */
+  public void reset() {
+    for (int i = 0; i < counts.length(); i++) {
+      counts.set(i, 0);
+    }
+    total.reset();
+    max.reset();
+  }
+
+  static int indexOf(long value) {
+    if (value < SUB_BUCKETS) {
+      return (int) value;
+    }
+    int shift = (Long.SIZE - 1 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_BITS;
+    int top = (int) (value >>> shift);
+    return (shift + 1) * SUB_BUCKETS + (top - SUB_BUCKETS);
+  }
+
+  static long highestValueAt(int index) {
+    if (index < SUB_BUCKETS) {
+      return index;
+    }
+    int shift = index / SUB_BUCKETS - 1;
+    long top = SUB_BUCKETS + index % SUB_BUCKETS;
+    // The last bucket ends at Long.MAX_VALUE, where (top + 1) << shift wraps around.
+    long next = (top + 1) << shift;
+    return next < 0 ? Long.MAX_VALUE : next - 1;
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A possible time for a meeting along with how many of the optional attendees are free for the
+ * whole of it. All mandatory attendees are always free during an option. Options are read-only.
+ */
+public final class MeetingOption {
+  private final TimeRange when;
+  private final int optionalAttendeeCount;
+
+  /**
+   * A comparator that puts options that more optional attendees can make first, and breaks ties by
+   * start time in ascending order.
+   */
+  public static final Comparator<MeetingOption> ORDER_BY_ATTENDANCE =
+      new Comparator<MeetingOption>() {
+        @Override
+        public int compare(MeetingOption a, MeetingOption b) {
+          int byCount = Integer.compare(b.optionalAttendeeCount, a.optionalAttendeeCount);
+          return byCount != 0 ? byCount : TimeRange.ORDER_BY_START.compare(a.when, b.when);
+        }
+      };
+
+  /**
+   * Creates a new option.
+   *
+   * @param when The time of the option. Must be non-null.
+   * @param optionalAttendeeCount How many optional attendees are free for all of {@code when}.
+   */
+  public MeetingOption(TimeRange when, int optionalAttendeeCount) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    this.when = when;
+    this.optionalAttendeeCount = optionalAttendeeCount;
+  }
+
+  /**
+   * Returns the {@code TimeRange} of this option.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns how many optional attendees are free for the whole option.
+   */
+  public int getOptionalAttendeeCount() {
+    return optionalAttendeeCount;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof MeetingOption && equals(this, (MeetingOption) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() ^ optionalAttendeeCount;
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Option: %s with %d optional", when, optionalAttendeeCount);
+  }
+
+  private static boolean equals(MeetingOption a, MeetingOption b) {
+    return a.when.equals(b.when) && a.optionalAttendeeCount == b.optionalAttendeeCount;
+  }
+}
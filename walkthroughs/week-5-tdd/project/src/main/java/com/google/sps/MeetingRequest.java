@@ -67,6 +67,16 @@ public final class MeetingRequest {
     }
   }
 
+  /**
+   * Returns whether both attendee lists are present and hold no {@code null} names. Requests built
+   * with the constructor always are, but ones parsed from JSON may not be: Gson does not run the
+   * constructor, so a list that is null or missing in the JSON is null here.
+   */
+  public boolean isValid() {
+    return attendees != null && optional_attendees != null && !attendees.contains(null)
+        && !optional_attendees.contains(null);
+  }
+
   /**
    * Returns the duration of the meeting in minutes.
    */
@@ -0,0 +1,229 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+
+/**
+ * A map that is changed by making a new version of it. It is a hash array mapped trie: each node
+ * has up to 32 slots, picked by 5 bits of the key's hash at a time, and keeps only the slots in
+ * use, found through a bitmap. A new version copies only the nodes on the path to the changed key
+ * and shares the rest with the old one, so changes take O(log32 n) time instead of copying the
+ * whole map. Keys whose hashes are equal end up together in a node at the bottom that is searched
+ * linearly. Null keys and values are not allowed. Instances are immutable and can be shared
+ * between threads.
+ *
+ * @param <K> The type of the keys.
+ * @param <V> The type of the values.
+ */
+final class PersistentMap<K, V> {
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+  // Nodes this deep have used up every bit of the hash and hold colliding keys.
+  private static final int HASH_BITS = 32;
+
+  private static final PersistentMap<?, ?> EMPTY = new PersistentMap<>(null);
+
+  private final Node root;
+
+  private PersistentMap(Node root) {
+    this.root = root;
+  }
+
+  /**
+   * Returns the empty map.
+   */
+  @SuppressWarnings("unchecked")
+  static <K, V> PersistentMap<K, V> empty() {
+    return (PersistentMap<K, V>) EMPTY;
+  }
+
+  /**
+   * Returns the value of {@code key}, or null if it has none.
+   */
+  @SuppressWarnings("unchecked")
+  V get(Object key) {
+    int hash = hash(key);
+    Node node = root;
+    for (int level = 0; node != null; level += BITS) {
+      if (level >= HASH_BITS) {
+        int i = node.collisionIndex(key);
+        return i < 0 ? null : (V) node.array[i + 1];
+      }
+      int bit = bit(hash, level);
+      if ((node.bitmap & bit) == 0) {
+        return null;
+      }
+      int i = node.index(bit);
+      Object found = node.array[i];
+      if (found != null) {
+        return key.equals(found) ? (V) node.array[i + 1] : null;
+      }
+      node = (Node) node.array[i + 1];
+    }
+    return null;
+  }
+
+  /**
+   * Returns a copy of this map with {@code key} mapped to {@code value}.
+   */
+  PersistentMap<K, V> put(K key, V value) {
+    if (key == null || value == null) {
+      throw new IllegalArgumentException("key and value cannot be null");
+    }
+    return new PersistentMap<>(put(root, 0, hash(key), key, value));
+  }
+
+  /**
+   * Returns a copy of this map without {@code key}, or this map if it does not have the key.
+   */
+  PersistentMap<K, V> remove(Object key) {
+    Node newRoot = remove(root, 0, hash(key), key);
+    return newRoot == root ? this : new PersistentMap<>(newRoot);
+  }
+
+  private static Node put(Node node, int level, int hash, Object key, Object value) {
+    if (level >= HASH_BITS) {
+      Object[] array = node == null ? new Object[0] : node.array;
+      int i = node == null ? -1 : node.collisionIndex(key);
+      if (i < 0) {
+        i = array.length;
+        array = Arrays.copyOf(array, i + 2);
+        array[i] = key;
+      } else {
+        array = array.clone();
+      }
+      array[i + 1] = value;
+      return new Node(0, array);
+    }
+
+    int bit = bit(hash, level);
+    if (node == null) {
+      return new Node(bit, new Object[] {key, value});
+    }
+    int i = node.index(bit);
+    if ((node.bitmap & bit) == 0) {
+      Object[] array = new Object[node.array.length + 2];
+      System.arraycopy(node.array, 0, array, 0, i);
+      array[i] = key;
+      array[i + 1] = value;
+      System.arraycopy(node.array, i, array, i + 2, node.array.length - i);
+      return new Node(node.bitmap | bit, array);
+    }
+
+    Object[] array = node.array.clone();
+    Object found = array[i];
+    if (found == null) {
+      array[i + 1] = put((Node) array[i + 1], level + BITS, hash, key, value);
+    } else if (key.equals(found)) {
+      array[i + 1] = value;
+    } else {
+      // Two keys share the slot, so it becomes a node of its own one level down.
+      Node child = put(null, level + BITS, hash(found), found, array[i + 1]);
+      array[i] = null;
+      array[i + 1] = put(child, level + BITS, hash, key, value);
+    }
+    return new Node(node.bitmap, array);
+  }
+
+  /**
+   * Returns {@code node} without {@code key}: the same node if it does not have the key, or null
+   * if nothing is left in it.
+   */
+  private static Node remove(Node node, int level, int hash, Object key) {
+    if (node == null) {
+      return null;
+    }
+    if (level >= HASH_BITS) {
+      int i = node.collisionIndex(key);
+      return i < 0 ? node : node.without(i, 0);
+    }
+
+    int bit = bit(hash, level);
+    if ((node.bitmap & bit) == 0) {
+      return node;
+    }
+    int i = node.index(bit);
+    Object found = node.array[i];
+    if (found != null) {
+      return key.equals(found) ? node.without(i, bit) : node;
+    }
+    Node child = (Node) node.array[i + 1];
+    Node newChild = remove(child, level + BITS, hash, key);
+    if (newChild == child) {
+      return node;
+    }
+    if (newChild == null) {
+      return node.without(i, bit);
+    }
+    Object[] array = node.array.clone();
+    array[i + 1] = newChild;
+    return new Node(node.bitmap, array);
+  }
+
+  private static int hash(Object key) {
+    int hash = key.hashCode();
+    return hash ^ (hash >>> 16);
+  }
+
+  private static int bit(int hash, int level) {
+    return 1 << ((hash >>> level) & MASK);
+  }
+
+  private static final class Node {
+    // Which of the 32 slots are in use. Unused for nodes of colliding keys.
+    final int bitmap;
+    // Two entries per slot in use: a key and its value, or null and the node below.
+    final Object[] array;
+
+    Node(int bitmap, Object[] array) {
+      this.bitmap = bitmap;
+      this.array = array;
+    }
+
+    /**
+     * Returns where the slot of {@code bit} starts in the array.
+     */
+    int index(int bit) {
+      return 2 * Integer.bitCount(bitmap & (bit - 1));
+    }
+
+    /**
+     * Returns where {@code key} starts in a node of colliding keys, or -1 if it is not there.
+     */
+    int collisionIndex(Object key) {
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    /**
+     * Returns a copy of this node without the slot starting at {@code i}, or null if it was the
+     * last one.
+     */
+    Node without(int i, int bit) {
+      if (array.length == 2) {
+        return null;
+      }
+      Object[] smaller = new Object[array.length - 2];
+      System.arraycopy(array, 0, smaller, 0, i);
+      System.arraycopy(array, i + 2, smaller, i, array.length - i - 2);
+      return new Node(bitmap & ~bit, smaller);
+    }
+  }
+}
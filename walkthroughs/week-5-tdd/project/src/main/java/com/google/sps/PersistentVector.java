@@ -0,0 +1,177 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.AbstractList;
+import java.util.Collection;
+import java.util.RandomAccess;
+
+/**
+ * A read-only list that is changed by making a new version of it. The elements are kept in a tree
+ * of 32 wide arrays, and a new version copies only the arrays on the path to the changed element
+ * and shares the rest with the old one. Reads and changes both take O(log32 n) time, which is at
+ * most a handful of array steps for any list that fits in memory. Instances are immutable and can
+ * be shared between threads.
+ *
+ * @param <T> The type of the elements.
+ */
+final class PersistentVector<T> extends AbstractList<T> implements RandomAccess {
+  private static final int BITS = 5;
+  private static final int WIDTH = 1 << BITS;
+  private static final int MASK = WIDTH - 1;
+
+  private static final PersistentVector<?> EMPTY = new PersistentVector<>(new Object[WIDTH], 0, 0);
+
+  // The root of the tree, which is a leaf of elements when shift is 0. Elements are found by
+  // taking BITS bits of their index per level, from the top.
+  private final Object[] root;
+  private final int shift;
+  private final int size;
+
+  private PersistentVector(Object[] root, int shift, int size) {
+    this.root = root;
+    this.shift = shift;
+    this.size = size;
+  }
+
+  /**
+   * Returns the empty list.
+   */
+  @SuppressWarnings("unchecked")
+  static <T> PersistentVector<T> empty() {
+    return (PersistentVector<T>) EMPTY;
+  }
+
+  /**
+   * Returns a list of {@code elements}, in iteration order. The tree is built bottom up, so this
+   * takes O(n) time rather than n appends.
+   */
+  static <T> PersistentVector<T> of(Collection<? extends T> elements) {
+    Object[] nodes = elements.toArray();
+    int size = nodes.length;
+    if (size == 0) {
+      return empty();
+    }
+    int shift = -BITS;
+    do {
+      nodes = chunk(nodes);
+      shift += BITS;
+    } while (nodes.length > 1);
+    return new PersistentVector<>((Object[]) nodes[0], shift, size);
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  @SuppressWarnings("unchecked")
+  public T get(int index) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " is out of bounds");
+    }
+    Object[] node = root;
+    for (int level = shift; level > 0; level -= BITS) {
+      node = (Object[]) node[(index >>> level) & MASK];
+    }
+    return (T) node[index & MASK];
+  }
+
+  /**
+   * Returns a copy of this list with the element at {@code index} replaced by {@code element}.
+   */
+  PersistentVector<T> with(int index, T element) {
+    if (index < 0 || index >= size) {
+      throw new IndexOutOfBoundsException("index " + index + " is out of bounds");
+    }
+    return new PersistentVector<>(assoc(root, shift, index, element), shift, size);
+  }
+
+  /**
+   * Returns a copy of this list with {@code element} appended.
+   */
+  PersistentVector<T> append(T element) {
+    if (size == 1 << (shift + BITS)) {
+      // The tree is full, so it grows a level with the old root on the left.
+      Object[] newRoot = new Object[WIDTH];
+      newRoot[0] = root;
+      return new PersistentVector<>(
+          assoc(newRoot, shift + BITS, size, element), shift + BITS, size + 1);
+    }
+    return new PersistentVector<>(assoc(root, shift, size, element), shift, size + 1);
+  }
+
+  /**
+   * Returns a copy of this list without its last element.
+   */
+  PersistentVector<T> dropLast() {
+    if (size == 0) {
+      throw new IllegalStateException("list is empty");
+    }
+    if (size == 1) {
+      return empty();
+    }
+    Object[] newRoot = drop(root, shift, size - 1);
+    if (shift > 0 && size - 1 <= 1 << shift) {
+      // Everything left fits under the leftmost child, so the tree loses a level.
+      return new PersistentVector<>((Object[]) newRoot[0], shift - BITS, size - 1);
+    }
+    return new PersistentVector<>(newRoot, shift, size - 1);
+  }
+
+  /**
+   * Splits {@code items} into nodes of {@link #WIDTH}, the last one padded with nulls.
+   */
+  private static Object[] chunk(Object[] items) {
+    Object[] nodes = new Object[(items.length + MASK) / WIDTH];
+    for (int i = 0; i < nodes.length; i++) {
+      Object[] node = new Object[WIDTH];
+      System.arraycopy(items, i * WIDTH, node, 0, Math.min(WIDTH, items.length - i * WIDTH));
+      nodes[i] = node;
+    }
+    return nodes;
+  }
+
+  /**
+   * Returns a copy of {@code node} with {@code element} at {@code index}, creating the nodes on
+   * the way down that do not exist yet.
+   */
+  private static Object[] assoc(Object[] node, int level, int index, Object element) {
+    Object[] copy = node == null ? new Object[WIDTH] : node.clone();
+    if (level == 0) {
+      copy[index & MASK] = element;
+    } else {
+      int slot = (index >>> level) & MASK;
+      copy[slot] = assoc((Object[]) copy[slot], level - BITS, index, element);
+    }
+    return copy;
+  }
+
+  /**
+   * Returns a copy of {@code node} without the element at {@code index}, which is the last one,
+   * or null if nothing is left under it.
+   */
+  private static Object[] drop(Object[] node, int level, int index) {
+    int slot = (index >>> level) & MASK;
+    Object child = level == 0 ? null : drop((Object[]) node[slot], level - BITS, index);
+    if (child == null && slot == 0) {
+      return null;
+    }
+    Object[] copy = node.clone();
+    copy[slot] = child;
+    return copy;
+  }
+}
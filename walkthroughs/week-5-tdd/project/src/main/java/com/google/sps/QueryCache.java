@@ -0,0 +1,150 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * A bounded cache of query answers that evicts the least recently used entry once it is full.
+ *
+ * <p>Entries are keyed by the request in a normalized form, so requests that list the same people
+ * in a different order or repeat a mandatory attendee as optional share an entry, together with
+ * the version of the calendar the answer was computed from. A lookup always passes the current
+ * version, so an answer computed before the calendar changed is never served. As soon as a newer
+ * version is seen, every older entry is dropped. Instances are thread-safe.
+ *
+ * @param <V> The type of the cached answers. Answers are shared between callers, so they should
+ *     be read-only.
+ */
+public final class QueryCache<V> {
+  private final Map<Key, V> entries;
+  private long latestVersion = Long.MIN_VALUE;
+
+  /**
+   * Creates an empty cache.
+   *
+   * @param capacity The most answers to keep. Must be positive.
+   */
+  public QueryCache(final int capacity) {
+    if (capacity <= 0) {
+      throw new IllegalArgumentException("capacity must be positive");
+    }
+
+    // An access ordered LinkedHashMap keeps the least recently used entry first.
+    this.entries = new LinkedHashMap<Key, V>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, V> eldest) {
+        return size() > capacity;
+      }
+    };
+  }
+
+  /**
+   * Returns the cached answer to {@code request} for calendar {@code version}, computing and
+   * caching it with {@code compute} if there is none. The answer is computed outside of the lock,
+   * so two threads asking the same new question may both compute it.
+   */
+  public V get(MeetingRequest request, long version, Function<MeetingRequest, V> compute) {
+    Key key = new Key(request, version);
+    V answer;
+    synchronized (this) {
+      answer = entries.get(key);
+    }
+    if (answer != null) {
+      return answer;
+    }
+
+    answer = compute.apply(request);
+    synchronized (this) {
+      if (version > latestVersion) {
+        entries.clear();
+        latestVersion = version;
+      }
+      if (version == latestVersion) {
+        entries.put(key, answer);
+      }
+    }
+    return answer;
+  }
+
+  /**
+   * Returns the number of cached answers.
+   */
+  public synchronized int size() {
+    return entries.size();
+  }
+
+  /**
+   * Drops every cached answer.
+   */
+  public synchronized void clear() {
+    entries.clear();
+  }
+
+  /**
+   * A request reduced to the parts that decide its answer.
+   */
+  private static final class Key {
+    private final List<String> attendees;
+    private final List<String> optionalAttendees;
+    private final long duration;
+    private final long version;
+
+    Key(MeetingRequest request, long version) {
+      Set<String> optional = new HashSet<>(request.getOptionalAttendees());
+      // Someone who has to attend anyway is no more or less free for being optional too.
+      optional.removeAll(request.getAttendees());
+
+      this.attendees = sorted(request.getAttendees());
+      this.optionalAttendees = sorted(optional);
+      this.duration = request.getDuration();
+      this.version = version;
+    }
+
+    private static List<String> sorted(Collection<String> people) {
+      List<String> sorted = new ArrayList<>(new HashSet<>(people));
+      Collections.sort(sorted);
+      return sorted;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return duration == key.duration
+          && version == key.version
+          && attendees.equals(key.attendees)
+          && optionalAttendees.equals(key.optionalAttendees);
+    }
+
+    @Override
+    public int hashCode() {
+      int hash = attendees.hashCode();
+      hash = 31 * hash + optionalAttendees.hashCode();
+      hash = 31 * hash + Long.hashCode(duration);
+      return 31 * hash + Long.hashCode(version);
+    }
+  }
+}
@@ -0,0 +1,166 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and a latency histogram for meeting queries, so slow queries can be told apart from
+ * busy ones: how long each query took, how many events it looked at, how many of them involved a
+ * requested attendee, how many free ranges it returned, and how often the optional attendees had
+ * to be dropped. Recording uses {@link LongAdder}s, which threads can update without contending.
+ * Instances are thread-safe.
+ */
+public final class QueryStats {
+  /**
+   * The stats every {@link FindMeetingQuery} records into unless it is given its own.
+   */
+  public static final QueryStats GLOBAL = new QueryStats();
+
+  private final LatencyHistogram latency = new LatencyHistogram();
+  private final LongAdder queries = new LongAdder();
+  private final LongAdder eventsScanned = new LongAdder();
+  private final LongAdder eventsMatched = new LongAdder();
+  private final LongAdder freeRanges = new LongAdder();
+  private final LongAdder optionalFallbacks = new LongAdder();
+
+  /**
+   * Records one query.
+   *
+   * @param nanos How long the query took.
+   * @param scanned The number of events or busy times the query looked at.
+   * @param matched The number of busy times of requested attendees it found among them.
+   * @param free The number of free ranges it returned.
+   * @param fellBack Whether nothing fit the optional attendees, so they were dropped.
+   */
+  void record(long nanos, int scanned, int matched, int free, boolean fellBack) {
+    latency.record(nanos);
+    queries.increment();
+    eventsScanned.add(scanned);
+    eventsMatched.add(matched);
+    freeRanges.add(free);
+    if (fellBack) {
+      optionalFallbacks.increment();
+    }
+  }
+
+  /**
+   * Returns the latencies recorded so far, in nanoseconds.
+   */
+  public LatencyHistogram getLatency() {
+    return latency;
+  }
+
+  /**
+   * Returns the numbers recorded so far. Queries that finish while the snapshot is taken may be
+   * counted in some of its numbers but not in others.
+   */
+  public Snapshot snapshot() {
+    return new Snapshot(this);
+  }
+
+  /**
+   * Forgets everything recorded so far.
+   */
+  public void reset() {
+    latency.reset();
+    queries.reset();
+    eventsScanned.reset();
+    eventsMatched.reset();
+    freeRanges.reset();
+    optionalFallbacks.reset();
+  }
+
+  /**
+   * The numbers recorded up to some point, with latencies in microseconds. Meant to be turned into
+   * JSON as it is.
+   */
+  public static final class Snapshot {
+    private final long queries;
+    private final long eventsScanned;
+    private final long eventsMatched;
+    private final long freeRanges;
+    private final long optionalFallbacks;
+    private final double meanMicros;
+    private final long p50Micros;
+    private final long p90Micros;
+    private final long p99Micros;
+    private final long p999Micros;
+    private final long maxMicros;
+
+    private Snapshot(QueryStats stats) {
+      this.queries = stats.queries.sum();
+      this.eventsScanned = stats.eventsScanned.sum();
+      this.eventsMatched = stats.eventsMatched.sum();
+      this.freeRanges = stats.freeRanges.sum();
+      this.optionalFallbacks = stats.optionalFallbacks.sum();
+      this.meanMicros = stats.latency.getMean() / TimeUnit.MICROSECONDS.toNanos(1);
+      this.p50Micros = micros(stats.latency.getValueAtPercentile(50));
+      this.p90Micros = micros(stats.latency.getValueAtPercentile(90));
+      this.p99Micros = micros(stats.latency.getValueAtPercentile(99));
+      this.p999Micros = micros(stats.latency.getValueAtPercentile(99.9));
+      this.maxMicros = micros(stats.latency.getMax());
+    }
+
+    private static long micros(long nanos) {
+      return TimeUnit.NANOSECONDS.toMicros(nanos);
+    }
+
+    public long getQueries() {
+      return queries;
+    }
+
+    public long getEventsScanned() {
+      return eventsScanned;
+    }
+
+    public long getEventsMatched() {
+      return eventsMatched;
+    }
+
+    public long getFreeRanges() {
+      return freeRanges;
+    }
+
+    public long getOptionalFallbacks() {
+      return optionalFallbacks;
+    }
+
+    public double getMeanMicros() {
+      return meanMicros;
+    }
+
+    public long getP50Micros() {
+      return p50Micros;
+    }
+
+    public long getP90Micros() {
+      return p90Micros;
+    }
+
+    public long getP99Micros() {
+      return p99Micros;
+    }
+
+    public long getP999Micros() {
+      return p999Micros;
+    }
+
+    public long getMaxMicros() {
+      return maxMicros;
+    }
+  }
+}
@@ -0,0 +1,240 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Instead of the all-or-nothing fallback of {@link FindMeetingQuery}, returns every option where
+ * all mandatory attendees are free, ranked by how many of the optional attendees can make it. Each
+ * option is a span of time in which a meeting of the requested duration can be placed anywhere,
+ * and wherever it is placed, exactly the reported number of optional attendees are free for the
+ * whole meeting. Options that share a count are ordered by start. Options with different counts
+ * may overlap.
+ *
+ * <p>All of the options come out of a single sweep, no matter how many optional attendees there
+ * are. The sweep runs over meeting start times: a busy time [b, e) rules out every start in
+ * (b - duration, e). Each optional attendee's ruled out starts are merged so that a double-booked
+ * person only counts once, and together with the mandatory ones they become boundaries that are
+ * sorted and swept once into stretches of start times with a constant number of free optional
+ * attendees.
+ */
+public final class RankedMeetingQuery {
+  /** Returns the ranked options for {@code request} within a single day of {@code events}. */
+  public List<MeetingOption> query(Collection<Event> events, MeetingRequest request) {
+    return query(events, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest)}, but searches the given horizon instead of
+   * a single day.
+   */
+  public List<MeetingOption> query(
+      Collection<Event> events, MeetingRequest request, TimeRange horizon) {
+    return query(events, request, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but only counts people as free
+   * within their working hours, as
+   * {@link FindMeetingQuery#query(Collection, MeetingRequest, Map, TimeRange)} does. Time outside
+   * an optional attendee's working hours lowers the count like their events do.
+   */
+  public List<MeetingOption> query(Collection<Event> events, MeetingRequest request,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    return BusyTimes.search(request, horizon, (busy, duration) -> {
+      BitSet mandatoryAttendees = BusyTimes.attendeeIds(request.getAttendees());
+      BitSet optionalAttendees = BusyTimes.attendeeIds(request.getOptionalAttendees());
+      Map<Integer, Intervals> optionalBusyTimes = new HashMap<>();
+      for (Event event : events) {
+        if (!event.getWhen().overlaps(horizon)) {
+          continue;
+        }
+        if (BusyTimes.attendsAny(event, mandatoryAttendees)) {
+          busy.mandatory.add(event.getWhen());
+          continue;
+        }
+        for (int attendee : event.getAttendeeIds()) {
+          if (optionalAttendees.get(attendee)) {
+            optionalBusyTimes.computeIfAbsent(attendee, key -> new Intervals(4))
+                .add(event.getWhen());
+          }
+        }
+      }
+
+      BusyTimes.addUnavailableIntervals(
+          workingHours, request.getAttendees(), horizon, busy.mandatory);
+
+      // Lay each optional attendee's busy times and time outside working hours out as one run.
+      // People nobody has ever invited to anything have no id, but are still free optional
+      // attendees, so go by names rather than ids.
+      Set<String> optionalNames = new HashSet<>(request.getOptionalAttendees());
+      int runs = 0;
+      for (String attendee : optionalNames) {
+        Intervals busyTimes =
+            optionalBusyTimes.get(AttendeeDictionary.GLOBAL.lookup(attendee));
+        if (busyTimes != null) {
+          busy.optional.addAll(busyTimes);
+        }
+        BusyTimes.addUnavailableIntervals(
+            workingHours, Collections.singleton(attendee), horizon, busy.optional);
+        addRunEnd(busy, runs++);
+      }
+      return rankMeetingTimes(busy, runs, optionalNames.size(), duration, horizon);
+    });
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, TimeRange)}, but reads the busy times of the
+   * requested attendees out of an index.
+   */
+  public List<MeetingOption> query(
+      AttendeeIndex index, MeetingRequest request, TimeRange horizon) {
+    return query(index, request, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #query(AttendeeIndex, MeetingRequest, TimeRange)}, but only counts people as
+   * free within their working hours.
+   */
+  public List<MeetingOption> query(AttendeeIndex index, MeetingRequest request,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    return BusyTimes.search(request, horizon, (busy, duration) -> {
+      for (String attendee : request.getAttendees()) {
+        index.addBusyIntervals(attendee, horizon, busy.mandatory);
+      }
+      BusyTimes.addUnavailableIntervals(
+          workingHours, request.getAttendees(), horizon, busy.mandatory);
+      int runs = 0;
+      for (String attendee : request.getOptionalAttendees()) {
+        index.addBusyIntervals(attendee, horizon, busy.optional);
+        BusyTimes.addUnavailableIntervals(
+            workingHours, Collections.singleton(attendee), horizon, busy.optional);
+        addRunEnd(busy, runs++);
+      }
+
+      return rankMeetingTimes(
+          busy, runs, request.getOptionalAttendees().size(), duration, horizon);
+    });
+  }
+
+  /**
+   * Records the end of the {@code run}th optional attendee's busy times, which is wherever
+   * {@code busy.optional} ends now.
+   */
+  private static void addRunEnd(BusyTimes busy, int run) {
+    if (run == busy.runEnds.length) {
+      busy.runEnds = Arrays.copyOf(busy.runEnds, 2 * run);
+    }
+    busy.runEnds[run] = busy.optional.size();
+  }
+
+  /**
+   * Sweeps the busy times of the mandatory attendees and of each optional attendee into ranked
+   * options. The optional busy times are laid out in {@code busy.optional} one attendee after
+   * another, with the end of each attendee's run in {@code busy.runEnds}.
+   */
+  private static List<MeetingOption> rankMeetingTimes(
+      BusyTimes busy, int runs, int optionalCount, long duration, TimeRange horizon) {
+    // A meeting starting at s overlaps [b, e) exactly when s is in [b - duration + 1, e), so that
+    // is the span of starts each busy time rules out. Each boundary packs its time into the high
+    // half of a long and the change in the number of busy optional attendees into the low half, so
+    // sorting the longs sorts the boundaries by time. A busy mandatory attendee counts as more than
+    // all optional attendees together, which marks those starts as unusable.
+    int shift = (int) duration - 1;
+    Intervals mandatory = busy.mandatory;
+    Intervals optional = busy.optional;
+    Intervals boundaries = busy.boundaries;
+    for (int i = 0; i < mandatory.size(); i++) {
+      long interval = mandatory.get(i);
+      boundaries.add(Intervals.pack(Intervals.start(interval) - shift, optionalCount + 1));
+      boundaries.add(Intervals.pack(Intervals.end(interval), -(optionalCount + 1)));
+    }
+    int runStart = 0;
+    for (int run = 0; run < runs; run++) {
+      int runEnd = busy.runEnds[run];
+      Arrays.sort(optional.array(), runStart, runEnd);
+      int mergedStart = 0;
+      int mergedEnd = Integer.MIN_VALUE;
+      for (int i = runStart; i < runEnd; i++) {
+        long interval = optional.get(i);
+        if (Intervals.start(interval) - shift > mergedEnd) {
+          if (mergedEnd != Integer.MIN_VALUE) {
+            boundaries.add(Intervals.pack(mergedStart, 1));
+            boundaries.add(Intervals.pack(mergedEnd, -1));
+          }
+          mergedStart = Intervals.start(interval) - shift;
+        }
+        mergedEnd = Math.max(mergedEnd, Intervals.end(interval));
+      }
+      if (mergedEnd != Integer.MIN_VALUE) {
+        boundaries.add(Intervals.pack(mergedStart, 1));
+        boundaries.add(Intervals.pack(mergedEnd, -1));
+      }
+      runStart = runEnd;
+    }
+    boundaries.sort();
+    int count = boundaries.size();
+
+    // Sweep the boundaries over every start that leaves the meeting inside the horizon. Each
+    // stretch [p, q) of starts with the same number of free optional attendees becomes the option
+    // [p, q - 1 + duration).
+    List<MeetingOption> options = new ArrayList<>();
+    int lastStart = horizon.end() - shift;
+    int stretchStart = horizon.start();
+    long busyCount = 0;
+    int i = 0;
+    while (i < count && Intervals.start(boundaries.get(i)) < lastStart) {
+      int time = Intervals.start(boundaries.get(i));
+      long nextCount = busyCount;
+      for (; i < count && Intervals.start(boundaries.get(i)) == time; i++) {
+        nextCount += Intervals.end(boundaries.get(i));
+      }
+      if (time > horizon.start() && nextCount != busyCount) {
+        addOption(options, stretchStart, time, shift, busyCount, optionalCount);
+        stretchStart = time;
+      }
+      busyCount = nextCount;
+    }
+    if (stretchStart < lastStart) {
+      addOption(options, stretchStart, lastStart, shift, busyCount, optionalCount);
+    }
+
+    Collections.sort(options, MeetingOption.ORDER_BY_ATTENDANCE);
+    return options;
+  }
+
+  /**
+   * Adds the option for the stretch of starts [from, to) unless a mandatory attendee is busy
+   * during it.
+   */
+  private static void addOption(
+      List<MeetingOption> options, int from, int to, int shift, long busyCount,
+      int optionalCount) {
+    if (busyCount <= optionalCount) {
+      options.add(new MeetingOption(TimeRange.fromStartEnd(from, to + shift, false),
+          optionalCount - (int) busyCount));
+    }
+  }
+}
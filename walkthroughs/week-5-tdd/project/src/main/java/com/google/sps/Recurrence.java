@@ -0,0 +1,217 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * When a recurring event repeats, modeled on a small part of iCalendar's RRULE: every n days, or
+ * every n weeks on some days of the week, optionally capped by a number of occurrences or a last
+ * day, and with days on which an occurrence is skipped. Days are counted since the epoch, the same
+ * time base as {@link TimeRange#fromDays}. Recurrences are read-only; the {@code with} methods
+ * return changed copies.
+ *
+ * <p>Occurrences are never stored. They are worked out arithmetically for the window being
+ * searched, so a series that runs for years costs only as much as the occurrences that fall inside
+ * the window.
+ */
+public final class Recurrence {
+  /** How often the rule repeats. */
+  public enum Frequency {
+    DAILY,
+    WEEKLY
+  }
+
+  private static final int DAYS_PER_WEEK = 7;
+  private static final int NO_LIMIT = Integer.MAX_VALUE;
+
+  private final Frequency frequency;
+  private final int interval;
+  // For weekly rules, the days of the week as offsets from Monday in ascending order. Empty means
+  // the day of the week of the first occurrence.
+  private final int[] weekdays;
+  private final int count;
+  private final int lastDay;
+  // Days without an occurrence, sorted.
+  private final int[] exceptions;
+
+  private Recurrence(Frequency frequency, int interval, int[] weekdays, int count, int lastDay,
+      int[] exceptions) {
+    this.frequency = frequency;
+    this.interval = interval;
+    this.weekdays = weekdays;
+    this.count = count;
+    this.lastDay = lastDay;
+    this.exceptions = exceptions;
+  }
+
+  /**
+   * Returns a rule that repeats every {@code interval} days.
+   */
+  public static Recurrence daily(int interval) {
+    checkInterval(interval);
+    return new Recurrence(Frequency.DAILY, interval, new int[0], NO_LIMIT, NO_LIMIT, new int[0]);
+  }
+
+  /**
+   * Returns a rule that repeats every {@code interval} weeks on each of {@code weekdays}, or on the
+   * day of the week of the first occurrence if none are given.
+   */
+  public static Recurrence weekly(int interval, DayOfWeek... weekdays) {
+    checkInterval(interval);
+    Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+    days.addAll(Arrays.asList(weekdays));
+    int[] offsets = new int[days.size()];
+    int i = 0;
+    for (DayOfWeek day : days) {
+      offsets[i++] = day.getValue() - DayOfWeek.MONDAY.getValue();
+    }
+    return new Recurrence(Frequency.WEEKLY, interval, offsets, NO_LIMIT, NO_LIMIT, new int[0]);
+  }
+
+  /**
+   * Returns a copy of this rule that stops after {@code count} occurrences. As in iCalendar,
+   * skipped occurrences still count.
+   */
+  public Recurrence withCount(int count) {
+    if (count < 0) {
+      throw new IllegalArgumentException("count cannot be negative");
+    }
+    return new Recurrence(frequency, interval, weekdays, count, lastDay, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule with no occurrences after {@code day}.
+   */
+  public Recurrence withLastDay(int day) {
+    return new Recurrence(frequency, interval, weekdays, count, day, exceptions);
+  }
+
+  /**
+   * Returns a copy of this rule that skips the occurrence on {@code day}, if there is one.
+   */
+  public Recurrence withException(int day) {
+    int index = Arrays.binarySearch(exceptions, day);
+    if (index >= 0) {
+      return this;
+    }
+    int[] skipped = new int[exceptions.length + 1];
+    int insertAt = -index - 1;
+    System.arraycopy(exceptions, 0, skipped, 0, insertAt);
+    skipped[insertAt] = day;
+    System.arraycopy(exceptions, insertAt, skipped, insertAt + 1, exceptions.length - insertAt);
+    return new Recurrence(frequency, interval, weekdays, count, lastDay, skipped);
+  }
+
+  public Frequency getFrequency() {
+    return frequency;
+  }
+
+  public int getInterval() {
+    return interval;
+  }
+
+  /**
+   * Appends every occurrence of a series that first takes place at {@code first} that overlaps
+   * {@code window} to {@code out}, in ascending order. Only the days that can hold such an
+   * occurrence are looked at.
+   */
+  void addOccurrences(TimeRange first, TimeRange window, Intervals out) {
+    int firstDay = Math.floorDiv(first.start(), TimeRange.MINUTES_PER_DAY);
+    int timeOfDay = first.start() - firstDay * TimeRange.MINUTES_PER_DAY;
+    int duration = first.duration();
+
+    // An occurrence starting at s overlaps the window when s is in [lowestStart, endStart), which
+    // is the same test as TimeRange.overlaps. A window with no duration is overlapped by the
+    // occurrences that contain its start, including one starting right at it, so endStart is one
+    // past the window's end then. Turn that into a range of days.
+    int lowestStart = duration > 0 ? window.start() - duration + 1 : window.start();
+    int endStart = duration > 0 && window.duration() == 0 ? window.end() + 1 : window.end();
+    int fromDay = Math.max(ceilDiv(lowestStart - timeOfDay, TimeRange.MINUTES_PER_DAY), firstDay);
+    int toDay = ceilDiv(endStart - timeOfDay, TimeRange.MINUTES_PER_DAY);
+    if (lastDay != NO_LIMIT) {
+      toDay = Math.min(toDay, lastDay + 1);
+    }
+    if (fromDay >= toDay) {
+      return;
+    }
+
+    if (frequency == Frequency.DAILY) {
+      // Occurrence k is on firstDay + k * interval.
+      long k = ceilDiv(fromDay - firstDay, interval);
+      for (long day = firstDay + k * interval; day < toDay && k < count; day += interval, k++) {
+        addOccurrence((int) day, timeOfDay, duration, out);
+      }
+      return;
+    }
+
+    // Weekly: weeks start on Monday, and only every interval-th week after the first has any.
+    int[] days = weekdays.length > 0 ? weekdays : new int[] {weekday(firstDay)};
+    int firstWeek = firstDay - weekday(firstDay);
+    int firstWeekCount = 0;
+    for (int offset : days) {
+      if (firstWeek + offset >= firstDay) {
+        firstWeekCount++;
+      }
+    }
+
+    long weekSpan = (long) DAYS_PER_WEEK * interval;
+    long week = Math.max(0, Math.floorDiv(fromDay - firstWeek, weekSpan));
+    for (; firstWeek + week * weekSpan < toDay; week++) {
+      // How many occurrences came before this week, to apply the count.
+      long index = week == 0 ? 0 : firstWeekCount + (week - 1) * days.length;
+      for (int offset : days) {
+        long day = firstWeek + week * weekSpan + offset;
+        if (day < firstDay) {
+          continue;
+        }
+        if (index >= count || day >= toDay) {
+          return;
+        }
+        index++;
+        if (day >= fromDay) {
+          addOccurrence((int) day, timeOfDay, duration, out);
+        }
+      }
+    }
+  }
+
+  private void addOccurrence(int day, int timeOfDay, int duration, Intervals out) {
+    if (Arrays.binarySearch(exceptions, day) < 0) {
+      int start = day * TimeRange.MINUTES_PER_DAY + timeOfDay;
+      out.add(Intervals.pack(start, start + duration));
+    }
+  }
+
+  /**
+   * Returns the day of the week of {@code day} as an offset from Monday. The epoch was a Thursday.
+   */
+  static int weekday(int day) {
+    return Math.floorMod(day + 3, DAYS_PER_WEEK);
+  }
+
+  private static int ceilDiv(int x, int y) {
+    return -Math.floorDiv(-x, y);
+  }
+
+  private static void checkInterval(int interval) {
+    if (interval <= 0) {
+      throw new IllegalArgumentException("interval must be positive");
+    }
+  }
+}
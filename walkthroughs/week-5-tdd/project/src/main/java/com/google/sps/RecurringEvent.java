@@ -0,0 +1,83 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * An event that repeats, such as a daily stand-up or a weekly one-on-one. It is made of its first
+ * occurrence and a {@link Recurrence} saying when it happens again. Only the occurrences inside a
+ * window that is asked about are ever worked out. Recurring events are read-only.
+ */
+public final class RecurringEvent {
+  private final Event first;
+  private final Recurrence recurrence;
+
+  /**
+   * Creates a new recurring event.
+   *
+   * @param first The first occurrence, which gives the title, attendees, time of day and duration
+   *     of every occurrence. Must be non-null.
+   * @param recurrence When the event repeats. Must be non-null.
+   */
+  public RecurringEvent(Event first, Recurrence recurrence) {
+    if (first == null) {
+      throw new IllegalArgumentException("first cannot be null");
+    }
+
+    if (recurrence == null) {
+      throw new IllegalArgumentException("recurrence cannot be null");
+    }
+
+    this.first = first;
+    this.recurrence = recurrence;
+  }
+
+  /**
+   * Returns the first occurrence.
+   */
+  public Event getFirst() {
+    return first;
+  }
+
+  /**
+   * Returns when the event repeats.
+   */
+  public Recurrence getRecurrence() {
+    return recurrence;
+  }
+
+  /**
+   * Returns the occurrences that overlap {@code window} as separate events, in ascending order.
+   */
+  public List<Event> getOccurrences(TimeRange window) {
+    Intervals occurrences = new Intervals();
+    addOccurrences(window, occurrences);
+    List<Event> events = new ArrayList<>(occurrences.size());
+    for (TimeRange when : occurrences.toTimeRanges(0, occurrences.size())) {
+      events.add(new Event(first.getTitle(), when, first.getAttendees()));
+    }
+    return events;
+  }
+
+  /**
+   * Appends the times of the occurrences that overlap {@code window} to {@code out}, in ascending
+   * order, without creating any events.
+   */
+  void addOccurrences(TimeRange window, Intervals out) {
+    recurrence.addOccurrences(first.getWhen(), window, out);
+  }
+}
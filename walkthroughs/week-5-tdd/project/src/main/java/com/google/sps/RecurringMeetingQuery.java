@@ -0,0 +1,85 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the times a meeting fits into a calendar of one-off and recurring events, with the same
+ * optional attendee fallback as {@link FindMeetingQuery}.
+ *
+ * <p>Recurring events are never expanded into a calendar of events: for each one a requested
+ * attendee goes to, the times of just the occurrences that overlap the horizon are worked out and
+ * filed as busy times, so a series that runs for a year costs the same as the few occurrences
+ * inside the horizon.
+ */
+public final class RecurringMeetingQuery {
+  private final QueryStats stats;
+
+  /** Creates a query that records how its queries went in {@link QueryStats#GLOBAL}. */
+  public RecurringMeetingQuery() {
+    this(QueryStats.GLOBAL);
+  }
+
+  /** Creates a query that records how its queries went in {@code stats}. */
+  public RecurringMeetingQuery(QueryStats stats) {
+    if (stats == null) {
+      throw new IllegalArgumentException("stats cannot be null");
+    }
+    this.stats = stats;
+  }
+
+  /**
+   * Returns the meeting times for {@code request} within {@code horizon}, taking both
+   * {@code events} and {@code recurringEvents} into account.
+   */
+  public List<TimeRange> query(
+      Collection<Event> events,
+      Collection<RecurringEvent> recurringEvents,
+      MeetingRequest request,
+      TimeRange horizon) {
+    return query(events, recurringEvents, request, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #query(Collection, Collection, MeetingRequest, TimeRange)}, but only proposes
+   * times within the working hours of the attendees, as
+   * {@link FindMeetingQuery#query(Collection, MeetingRequest, Map, TimeRange)} does.
+   */
+  public List<TimeRange> query(
+      Collection<Event> events,
+      Collection<RecurringEvent> recurringEvents,
+      MeetingRequest request,
+      Map<String, WorkingHours> workingHours,
+      TimeRange horizon) {
+    return BusyTimes.findMeetingTimes(stats, request, horizon, workingHours, busy -> {
+      busy.addEvents(events, request, horizon);
+      BitSet mandatoryAttendees = BusyTimes.attendeeIds(request.getAttendees());
+      BitSet optionalAttendees = BusyTimes.attendeeIds(request.getOptionalAttendees());
+      for (RecurringEvent recurringEvent : recurringEvents) {
+        if (BusyTimes.attendsAny(recurringEvent.getFirst(), mandatoryAttendees)) {
+          recurringEvent.addOccurrences(horizon, busy.mandatory);
+        } else if (BusyTimes.attendsAny(recurringEvent.getFirst(), optionalAttendees)) {
+          recurringEvent.addOccurrences(horizon, busy.optional);
+        }
+      }
+      return events.size() + recurringEvents.size();
+    }).times;
+  }
+}
@@ -0,0 +1,238 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The rooms that can be booked for meetings along with the times they are taken. An event takes up
+ * every room whose name is among its attendees.
+ *
+ * <p>Rooms are kept sorted by capacity, so the rooms too small for a meeting are skipped with one
+ * binary search. Each room's bookings are merged into disjoint blocks sorted by start, so whether a
+ * room is free at some time is found with a binary search instead of looking at every booking.
+ *
+ * <p>The gaps between the blocks, in every room, are kept in interval trees, so the rooms that are
+ * free during some part of a time are found without looking at the rooms that are booked all
+ * through it. There is one tree for all rooms, one for the larger half of them, one for the
+ * largest quarter and so on, and a lookup uses the smallest tree that holds every room big enough.
+ * At most half of the rooms in it are too small. A room's first gap starts at
+ * {@code Integer.MIN_VALUE / 2} and its last gap ends at {@code Integer.MAX_VALUE / 2}, which
+ * bounds the times options are found in. Instances are read-only.
+ */
+public final class RoomIndex {
+  private final Room[] rooms;
+  private final int[] capacities;
+  private final Intervals[] busyBlocks;
+  // gapLevels[k] holds the gaps of the rooms from position levelStarts[k] on, with the starts
+  // halving the rooms left each time.
+  private final int[] levelStarts;
+  private final List<IntervalTree<Gap>> gapLevels;
+
+  /**
+   * Creates an index of {@code rooms} booked by {@code events}.
+   *
+   * @param rooms The rooms. Must be non-null and have distinct names.
+   * @param events The events, of which the ones with a room among their attendees are bookings.
+   *     Must be non-null.
+   */
+  public RoomIndex(Collection<Room> rooms, Collection<Event> events) {
+    if (rooms == null) {
+      throw new IllegalArgumentException("rooms cannot be null");
+    }
+
+    if (events == null) {
+      throw new IllegalArgumentException("events cannot be null");
+    }
+
+    this.rooms = rooms.toArray(new Room[0]);
+    Arrays.sort(this.rooms, Comparator.comparingInt(Room::getCapacity));
+    this.capacities = new int[this.rooms.length];
+    Map<String, Integer> positions = new HashMap<>();
+    Intervals[] bookings = new Intervals[this.rooms.length];
+    for (int i = 0; i < this.rooms.length; i++) {
+      capacities[i] = this.rooms[i].getCapacity();
+      bookings[i] = new Intervals(4);
+      if (positions.put(this.rooms[i].getName(), i) != null) {
+        throw new IllegalArgumentException("room names must be distinct");
+      }
+    }
+
+    // Look rooms up by each event's attendees, rather than checking every room against every event.
+    for (Event event : events) {
+      for (String attendee : event.getAttendees()) {
+        Integer position = positions.get(attendee);
+        if (position != null) {
+          bookings[position].add(event.getWhen());
+        }
+      }
+    }
+
+    this.busyBlocks = new Intervals[this.rooms.length];
+    for (int i = 0; i < this.rooms.length; i++) {
+      bookings[i].sort();
+      busyBlocks[i] = Intervals.mergeBlocks(bookings[i], new Intervals(0));
+    }
+
+    List<Gap> gaps = new ArrayList<>();
+    for (int i = this.rooms.length - 1; i >= 0; i--) {
+      addGaps(i, busyBlocks[i], gaps);
+    }
+    List<Integer> starts = new ArrayList<>();
+    this.gapLevels = new ArrayList<>();
+    int levelStart = 0;
+    int gapCount = gaps.size();
+    while (true) {
+      // The gaps are listed largest room first, so each level is a prefix of the list.
+      while (gapCount > 0 && gaps.get(gapCount - 1).room < levelStart) {
+        gapCount--;
+      }
+      starts.add(levelStart);
+      gapLevels.add(new IntervalTree<>(gaps.subList(0, gapCount), gap -> gap.when));
+      if (levelStart >= this.rooms.length - 1) {
+        break;
+      }
+      levelStart += (this.rooms.length - levelStart + 1) / 2;
+    }
+    this.levelStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Returns the number of rooms.
+   */
+  public int size() {
+    return rooms.length;
+  }
+
+  /**
+   * Returns whether {@code room} has no booking that takes up any of {@code window}. Rooms not in
+   * the index are never free.
+   */
+  public boolean isFree(Room room, TimeRange window) {
+    for (int i = firstWithCapacity(room.getCapacity()); i < rooms.length
+        && capacities[i] == room.getCapacity(); i++) {
+      if (rooms[i].equals(room)) {
+        return !hasBookingIn(busyBlocks[i], window.start(), window.end());
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Adds an option to {@code options} for every gap of at least {@code duration} minutes inside
+   * {@code free} in every room that seats at least {@code capacity} people. The gaps are looked up
+   * in the smallest tree that holds every room big enough, so rooms booked all through
+   * {@code free} are never looked at.
+   */
+  void addOptions(TimeRange free, long duration, int capacity, List<RoomOption> options) {
+    int first = firstWithCapacity(capacity);
+    if (first == rooms.length) {
+      return;
+    }
+    int level = 0;
+    while (level + 1 < levelStarts.length && levelStarts[level + 1] <= first) {
+      level++;
+    }
+    for (Gap gap : gapLevels.get(level).overlapping(free)) {
+      if (gap.room < first) {
+        continue;
+      }
+      int start = Math.max(gap.when.start(), free.start());
+      int end = Math.min(gap.when.end(), free.end());
+      if (end > start && end - start >= duration) {
+        options.add(new RoomOption(TimeRange.fromStartEnd(start, end, false), rooms[gap.room]));
+      }
+    }
+  }
+
+  /**
+   * Adds the gaps around the disjoint {@code blocks} of the room at position {@code room} to
+   * {@code gaps}. A block with no duration still splits the gap it is in, as a sweep would.
+   */
+  private static void addGaps(int room, Intervals blocks, List<Gap> gaps) {
+    int gapStart = Integer.MIN_VALUE / 2;
+    for (int j = 0; j < blocks.size(); j++) {
+      int gapEnd = Math.min(Intervals.start(blocks.get(j)), Integer.MAX_VALUE / 2);
+      if (gapEnd > gapStart) {
+        gaps.add(new Gap(room, TimeRange.fromStartEnd(gapStart, gapEnd, false)));
+      }
+      gapStart = Math.max(gapStart, Intervals.end(blocks.get(j)));
+    }
+    if (gapStart < Integer.MAX_VALUE / 2) {
+      gaps.add(new Gap(room, TimeRange.fromStartEnd(gapStart, Integer.MAX_VALUE / 2, false)));
+    }
+  }
+
+  /**
+   * Returns the position of the smallest room that seats at least {@code capacity} people, or the
+   * number of rooms if there is none.
+   */
+  private int firstWithCapacity(int capacity) {
+    int low = 0;
+    int high = capacities.length;
+    while (low < high) {
+      int mid = (low + high) >>> 1;
+      if (capacities[mid] < capacity) {
+        low = mid + 1;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the position of the first of the disjoint {@code blocks} that ends after
+   * {@code point}. The blocks are sorted by start and do not overlap, so they are sorted by end
+   * too.
+   */
+  private static int firstBlockEndingAfter(Intervals blocks, int point) {
+    int index = blocks.firstStartAfter(point);
+    return index > 0 && Intervals.end(blocks.get(index - 1)) > point ? index - 1 : index;
+  }
+
+  /**
+   * Returns whether any of the disjoint {@code blocks} takes up time in [start, end). Blocks with
+   * no duration take up no time.
+   */
+  private static boolean hasBookingIn(Intervals blocks, int start, int end) {
+    for (int i = firstBlockEndingAfter(blocks, start); i < blocks.size()
+        && Intervals.start(blocks.get(i)) < end; i++) {
+      if (Intervals.end(blocks.get(i)) > Intervals.start(blocks.get(i))) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A time the room at position {@code room} is not booked.
+   */
+  private static final class Gap {
+    final int room;
+    final TimeRange when;
+
+    Gap(int room, TimeRange when) {
+      this.room = room;
+      this.when = when;
+    }
+  }
+}
@@ -0,0 +1,89 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Returns every pair of a time and a room where the attendees and the room are all free for at
+ * least the requested duration, sorted by start and then with the smaller rooms first. Only rooms
+ * that seat everybody the times are for are considered: the mandatory and optional attendees, or
+ * just the mandatory ones when the optional attendees had to be dropped.
+ *
+ * <p>The attendees' free times are found as in {@link FindMeetingQuery}, including the optional
+ * attendee fallback, and are then cut up by the bookings of each room that is big enough. The
+ * rooms' free times are kept in an interval index, so the cost grows with the options found rather
+ * than with every room that fits or every booking of every room.
+ */
+public final class RoomMeetingQuery {
+  private final QueryStats stats;
+
+  /** Creates a query that records how its queries went in {@link QueryStats#GLOBAL}. */
+  public RoomMeetingQuery() {
+    this(QueryStats.GLOBAL);
+  }
+
+  /** Creates a query that records how its queries went in {@code stats}. */
+  public RoomMeetingQuery(QueryStats stats) {
+    if (stats == null) {
+      throw new IllegalArgumentException("stats cannot be null");
+    }
+    this.stats = stats;
+  }
+
+  /** Returns the room options for {@code request} within a single day of {@code events}. */
+  public List<RoomOption> query(Collection<Event> events, MeetingRequest request, RoomIndex rooms) {
+    return query(events, request, rooms, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, RoomIndex)}, but searches the given horizon
+   * instead of a single day.
+   */
+  public List<RoomOption> query(
+      Collection<Event> events, MeetingRequest request, RoomIndex rooms, TimeRange horizon) {
+    return query(events, request, rooms, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #query(Collection, MeetingRequest, RoomIndex, TimeRange)}, but only proposes
+   * times within the working hours of the attendees, as
+   * {@link FindMeetingQuery#query(Collection, MeetingRequest, Map, TimeRange)} does.
+   */
+  public List<RoomOption> query(Collection<Event> events, MeetingRequest request, RoomIndex rooms,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    BusyTimes.FreeTimes freeTimes = BusyTimes.findMeetingTimes(stats, request, horizon,
+        workingHours, busy -> busy.addEvents(events, request, horizon));
+
+    // Optional attendees that were dropped need no seats.
+    Set<String> invited = new HashSet<>(request.getAttendees());
+    if (!freeTimes.fellBack) {
+      invited.addAll(request.getOptionalAttendees());
+    }
+
+    List<RoomOption> options = new ArrayList<>();
+    for (TimeRange free : freeTimes.times) {
+      rooms.addOptions(free, request.getDuration(), invited.size(), options);
+    }
+    Collections.sort(options, RoomOption.ORDER_BY_START);
+    return options;
+  }
+}
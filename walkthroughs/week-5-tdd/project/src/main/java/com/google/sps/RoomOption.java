@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Comparator;
+
+/**
+ * A possible time for a meeting along with a room that is free for all of it. Options are
+ * read-only.
+ */
+public final class RoomOption {
+  private final TimeRange when;
+  private final Room room;
+
+  /**
+   * A comparator that sorts options by start time in ascending order, and then puts smaller rooms
+   * first so that big rooms are left for big meetings.
+   */
+  public static final Comparator<RoomOption> ORDER_BY_START = new Comparator<RoomOption>() {
+    @Override
+    public int compare(RoomOption a, RoomOption b) {
+      int byStart = TimeRange.ORDER_BY_START.compare(a.when, b.when);
+      if (byStart != 0) {
+        return byStart;
+      }
+      int byCapacity = Integer.compare(a.room.getCapacity(), b.room.getCapacity());
+      return byCapacity != 0 ? byCapacity : a.room.getName().compareTo(b.room.getName());
+    }
+  };
+
+  /**
+   * Creates a new option.
+   *
+   * @param when The time of the option. Must be non-null.
+   * @param room The room that is free for all of {@code when}. Must be non-null.
+   */
+  public RoomOption(TimeRange when, Room room) {
+    if (when == null) {
+      throw new IllegalArgumentException("when cannot be null");
+    }
+
+    if (room == null) {
+      throw new IllegalArgumentException("room cannot be null");
+    }
+
+    this.when = when;
+    this.room = room;
+  }
+
+  /**
+   * Returns the {@code TimeRange} of this option.
+   */
+  public TimeRange getWhen() {
+    return when;
+  }
+
+  /**
+   * Returns the room of this option.
+   */
+  public Room getRoom() {
+    return room;
+  }
+
+  @Override
+  public boolean equals(Object other) {
+    return other instanceof RoomOption && equals(this, (RoomOption) other);
+  }
+
+  @Override
+  public int hashCode() {
+    return when.hashCode() ^ room.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return String.format("Option: %s in %s", when, room.getName());
+  }
+
+  private static boolean equals(RoomOption a, RoomOption b) {
+    return a.when.equals(b.when) && a.room.equals(b.room);
+  }
+}
@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Finds the times a meeting fits into a {@link CalendarSnapshot}, with the same optional attendee
+ * fallback as {@link FindMeetingQuery}. The busy times of the requested attendees are read
+ * straight out of the snapshot's buffer: like an {@link AttendeeIndex}, only the posting lists of
+ * the people in the request are touched, and no event objects are ever created.
+ */
+public final class SnapshotMeetingQuery {
+  private final QueryStats stats;
+
+  /** Creates a query that records how its queries went in {@link QueryStats#GLOBAL}. */
+  public SnapshotMeetingQuery() {
+    this(QueryStats.GLOBAL);
+  }
+
+  /** Creates a query that records how its queries went in {@code stats}. */
+  public SnapshotMeetingQuery(QueryStats stats) {
+    if (stats == null) {
+      throw new IllegalArgumentException("stats cannot be null");
+    }
+    this.stats = stats;
+  }
+
+  /** Returns the meeting times for {@code request} within a single day of {@code snapshot}. */
+  public List<TimeRange> query(CalendarSnapshot snapshot, MeetingRequest request) {
+    return query(snapshot, request, TimeRange.WHOLE_DAY);
+  }
+
+  /**
+   * Same as {@link #query(CalendarSnapshot, MeetingRequest)}, but searches the given horizon
+   * instead of a single day.
+   */
+  public List<TimeRange> query(
+      CalendarSnapshot snapshot, MeetingRequest request, TimeRange horizon) {
+    return query(snapshot, request, Collections.emptyMap(), horizon);
+  }
+
+  /**
+   * Same as {@link #query(CalendarSnapshot, MeetingRequest, TimeRange)}, but only proposes times
+   * within the working hours of the attendees, as
+   * {@link FindMeetingQuery#query(java.util.Collection, MeetingRequest, Map, TimeRange)} does.
+   */
+  public List<TimeRange> query(CalendarSnapshot snapshot, MeetingRequest request,
+      Map<String, WorkingHours> workingHours, TimeRange horizon) {
+    return BusyTimes.findMeetingTimes(stats, request, horizon, workingHours, busy -> {
+      for (String attendee : request.getAttendees()) {
+        snapshot.addBusyIntervals(attendee, horizon, busy.mandatory);
+      }
+      for (String attendee : request.getOptionalAttendees()) {
+        snapshot.addBusyIntervals(attendee, horizon, busy.optional);
+      }
+      // Only the requested attendees' busy times are read, so those are all it scans.
+      return busy.size();
+    }).times;
+  }
+}
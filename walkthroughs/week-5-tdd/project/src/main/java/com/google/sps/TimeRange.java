@@ -24,7 +24,9 @@ public final class TimeRange {
   public static final int START_OF_DAY = getTimeInMinutes(0, 0);
   public static final int END_OF_DAY = getTimeInMinutes(23, 59);
 
-  public static final TimeRange WHOLE_DAY = new TimeRange(0, 24 * 60);
+  public static final int MINUTES_PER_DAY = 24 * 60;
+
+  public static final TimeRange WHOLE_DAY = new TimeRange(0, MINUTES_PER_DAY);
 
   /**
    * A comparator for sorting ranges by their start time in ascending order.
@@ -183,4 +185,17 @@ public final class TimeRange {
   public static TimeRange fromStartDuration(int start, int duration) {
     return new TimeRange(start, duration);
   }
+
+  /**
+   * Creates a {@code TimeRange} covering {@code days} whole days, starting at the beginning of day
+   * {@code firstDay}. When times are counted in minutes since the epoch, {@code firstDay} is the
+   * number of days since the epoch, so {@code fromDays(today, 21)} is the next three weeks.
+   */
+  public static TimeRange fromDays(int firstDay, int days) {
+    if (days < 0) {
+      throw new IllegalArgumentException("days cannot be negative");
+    }
+
+    return new TimeRange(firstDay * MINUTES_PER_DAY, days * MINUTES_PER_DAY);
+  }
 }
@@ -0,0 +1,125 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+
+/**
+ * When a person can be invited to meetings: the same stretch of their local day on each of their
+ * working days, in a time zone given as a fixed offset from UTC. Times are in minutes, local ones
+ * counted from local midnight and UTC ones on the same time base as {@link TimeRange#fromDays}.
+ * Working hours are read-only; {@link #onDays} returns a changed copy.
+ *
+ * <p>The query engine does not check candidate meeting times against working hours. Instead,
+ * {@link #addUnavailableIntervals} turns the time outside them into busy times for the horizon
+ * being searched, which go through the same sort and sweep as the person's events, so times nobody
+ * can make are never proposed.
+ *
+ * <p>A horizon of exactly {@link TimeRange#WHOLE_DAY} is the single day the walkthrough's queries
+ * search, which has no date. Working days do not apply to it: only the hours count, whatever day
+ * of the week the person works. Search a horizon from {@link TimeRange#fromDays} to have days off
+ * taken into account.
+ */
+public final class WorkingHours {
+  private static final int ALL_DAYS = (1 << DayOfWeek.values().length) - 1;
+  // Offsets further from UTC than this do not exist, see java.time.ZoneOffset.
+  private static final int MAX_OFFSET = 18 * 60;
+
+  private final int start;
+  private final int end;
+  private final int utcOffset;
+  // Bit i is set if the person works on the day i days after Monday.
+  private final int days;
+
+  private WorkingHours(int start, int end, int utcOffset, int days) {
+    this.start = start;
+    this.end = end;
+    this.utcOffset = utcOffset;
+    this.days = days;
+  }
+
+  /**
+   * Returns working hours from {@code start} to {@code end} local time every day of the week.
+   *
+   * @param start The local time work starts, in minutes after midnight.
+   * @param end The local time work ends, in minutes after midnight. Must be after {@code start}
+   *     and at most {@link TimeRange#MINUTES_PER_DAY}.
+   * @param utcOffset How many minutes local time is ahead of UTC, negative west of Greenwich.
+   */
+  public static WorkingHours of(int start, int end, int utcOffset) {
+    if (start < 0 || end <= start || end > TimeRange.MINUTES_PER_DAY) {
+      throw new IllegalArgumentException("start and end must be a range within one day");
+    }
+    if (Math.abs(utcOffset) > MAX_OFFSET) {
+      throw new IllegalArgumentException("utcOffset must be within 18 hours");
+    }
+    return new WorkingHours(start, end, utcOffset, ALL_DAYS);
+  }
+
+  /**
+   * Returns a copy of these working hours that only applies on {@code workingDays}. The person is
+   * unavailable for the whole of every other day.
+   */
+  public WorkingHours onDays(DayOfWeek... workingDays) {
+    int mask = 0;
+    for (DayOfWeek day : workingDays) {
+      mask |= 1 << (day.getValue() - DayOfWeek.MONDAY.getValue());
+    }
+    return new WorkingHours(start, end, utcOffset, mask);
+  }
+
+  public int getStart() {
+    return start;
+  }
+
+  public int getEnd() {
+    return end;
+  }
+
+  public int getUtcOffset() {
+    return utcOffset;
+  }
+
+  /**
+   * Appends the parts of {@code horizon} outside these working hours to {@code out}, in ascending
+   * order and clipped to the horizon. Each stretch between two working periods is a single
+   * interval, however many days off it spans. If the horizon is {@link TimeRange#WHOLE_DAY}, every
+   * day is a working day.
+   */
+  void addUnavailableIntervals(TimeRange horizon, Intervals out) {
+    int workingDays = horizon.equals(TimeRange.WHOLE_DAY) ? ALL_DAYS : days;
+    // Local day d is worked from d * MINUTES_PER_DAY + start - utcOffset in UTC. Periods of days
+    // before the one the horizon starts in end before the horizon does.
+    int day = Math.floorDiv(horizon.start() + utcOffset, TimeRange.MINUTES_PER_DAY);
+    int unavailableFrom = horizon.start();
+    for (; unavailableFrom < horizon.end(); day++) {
+      int midnight = day * TimeRange.MINUTES_PER_DAY - utcOffset;
+      if (midnight >= horizon.end()) {
+        break;
+      }
+      if ((workingDays & (1 << Recurrence.weekday(day))) == 0) {
+        continue;
+      }
+      int workStart = midnight + start;
+      if (workStart > unavailableFrom) {
+        out.add(Intervals.pack(unavailableFrom, Math.min(workStart, horizon.end())));
+      }
+      unavailableFrom = Math.max(unavailableFrom, midnight + end);
+    }
+    if (unavailableFrom < horizon.end()) {
+      out.add(Intervals.pack(unavailableFrom, horizon.end()));
+    }
+  }
+}
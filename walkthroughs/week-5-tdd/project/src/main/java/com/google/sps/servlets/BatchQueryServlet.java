@@ -0,0 +1,75 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.FindMeetingQuery;
+import com.google.sps.MeetingRequest;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Batch version of {@link QueryServlet}. Accepts a JSON array of meeting requests and responds with
+ * a JSON array holding the possible meeting times for each request, in the same order.
+ */
+@WebServlet("/query-batch")
+public class BatchQueryServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Gson gson = new Gson();
+
+    // Convert the JSON to a list of MeetingRequests.
+    MeetingRequest[] meetingRequests;
+    try {
+      meetingRequests = gson.fromJson(request.getReader(), MeetingRequest[].class);
+    } catch (JsonParseException e) {
+      meetingRequests = null;
+    }
+    if (meetingRequests == null) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an array of requests.");
+      return;
+    }
+    for (MeetingRequest meetingRequest : meetingRequests) {
+      if (meetingRequest == null || !meetingRequest.isValid()) {
+        response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid meeting request.");
+        return;
+      }
+    }
+
+    // Answer every request against the same snapshot of the calendar.
+    FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+    List<Collection<TimeRange>> answers = findMeetingQuery.queryAll(
+        QueryServlet.STORE.snapshot().getIndex(), Arrays.asList(meetingRequests));
+
+    // Stream the times back as JSON
+    response.setContentType("application/json");
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    for (Collection<TimeRange> answer : answers) {
+      QueryServlet.writeTimes(gson, answer, writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+}
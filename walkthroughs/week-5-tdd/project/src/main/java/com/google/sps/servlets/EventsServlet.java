@@ -0,0 +1,123 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.Event;
+import com.google.sps.TimeRange;
+import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Changes the calendar while the server is running. POST adds the event in the body and responds
+ * with its id, PUT replaces the event with the id given by the {@code id} parameter, and DELETE
+ * removes it. Events use the same JSON as {@link GetEventsServlet}.
+ */
+@WebServlet("/events")
+public class EventsServlet extends HttpServlet {
+  @Override
+  public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Event event = parseEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    long id = QueryServlet.STORE.add(event);
+
+    // Send the id back as the response
+    response.setContentType("application/json");
+    response.getWriter().println(new Gson().toJson(Collections.singletonMap("id", id)));
+  }
+
+  @Override
+  public void doPut(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    Long id = parseId(request, response);
+    if (id == null) {
+      return;
+    }
+    Event event = parseEvent(request, response);
+    if (event == null) {
+      return;
+    }
+
+    if (QueryServlet.STORE.update(id, event)) {
+      response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    } else {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No event with id " + id + ".");
+    }
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    Long id = parseId(request, response);
+    if (id == null) {
+      return;
+    }
+
+    if (QueryServlet.STORE.delete(id)) {
+      response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+    } else {
+      response.sendError(HttpServletResponse.SC_NOT_FOUND, "No event with id " + id + ".");
+    }
+  }
+
+  /**
+   * Returns the {@code id} parameter, or sends an error and returns {@code null} if it is missing
+   * or not a number.
+   */
+  private static Long parseId(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    try {
+      return Long.parseLong(request.getParameter("id"));
+    } catch (NumberFormatException e) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected a numeric id.");
+      return null;
+    }
+  }
+
+  /**
+   * Returns the event in the body of the request, or sends an error and returns {@code null} if
+   * the body is not a valid event.
+   */
+  private static Event parseEvent(HttpServletRequest request, HttpServletResponse response)
+      throws IOException {
+    try {
+      EventJson json = new Gson().fromJson(request.getReader(), EventJson.class);
+      if (json != null) {
+        return new Event(json.title, json.when, json.attendees);
+      }
+    } catch (JsonParseException | IllegalArgumentException e) {
+      // Fall through to the error below.
+    }
+    response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Expected an event.");
+    return null;
+  }
+
+  /**
+   * The fields of an event as they appear in JSON, checked by the {@code Event} constructor.
+   */
+  private static final class EventJson {
+    private String title;
+    private TimeRange when;
+    private List<String> attendees;
+  }
+}
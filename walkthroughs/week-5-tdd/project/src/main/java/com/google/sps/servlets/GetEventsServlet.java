@@ -14,23 +14,83 @@
 
 package com.google.sps.servlets;
 
-import com.google.sps.Events;
+import com.google.sps.Event;
+import com.google.sps.EventStore;
+import com.google.sps.TimeRange;
 import com.google.gson.Gson;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
+import java.util.List;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+/**
+ * Responds with a JSON array of the events in the calendar. The events are written to the response
+ * one at a time as they are found rather than built up as one string first.
+ *
+ * <p>All parameters are optional. {@code attendee} keeps only the events that person attends, and
+ * {@code start} and {@code end}, in minutes, keep only the events that overlap [start, end). Of the
+ * events that are left, {@code offset} skips the first ones and {@code limit} caps how many are
+ * returned. Events come in the same order on every page as long as the calendar does not change.
+ *
+ * <p>Each filter is answered from an index on the calendar snapshot, by attendee, by time or both,
+ * which hands back a list the page is cut out of. Skipping to a later page therefore costs nothing
+ * extra, rather than walking over every event before it.
+ */
 @WebServlet("/get-events")
 public class GetEventsServlet extends HttpServlet {
   @Override
   public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    String attendee = request.getParameter("attendee");
+    boolean windowed = request.getParameter("start") != null || request.getParameter("end") != null;
+    TimeRange window;
+    int offset;
+    int limit;
+    try {
+      int start = parseInt(request, "start", Integer.MIN_VALUE / 2);
+      int end = parseInt(request, "end", Integer.MAX_VALUE / 2);
+      offset = parseInt(request, "offset", 0);
+      limit = parseInt(request, "limit", Integer.MAX_VALUE);
+      // The range's duration has to fit in an int too.
+      if (start > end || (long) end - start > Integer.MAX_VALUE || offset < 0 || limit < 0) {
+        throw new NumberFormatException();
+      }
+      window = TimeRange.fromStartEnd(start, end, false);
+    } catch (NumberFormatException e) {
+      response.sendError(
+          HttpServletResponse.SC_BAD_REQUEST, "Invalid start, end, offset or limit.");
+      return;
+    }
+
     Gson gson = new Gson();
-    String jsonResponse = gson.toJson(Events.events);
 
-    // Send the JSON back as the response
+    // Stream the matching events back as the response
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writer.beginArray();
+    EventStore.Snapshot snapshot = QueryServlet.STORE.snapshot();
+    List<Event> events;
+    if (attendee != null) {
+      events = windowed ? snapshot.getEvents(attendee, window) : snapshot.getEvents(attendee);
+    } else {
+      events = windowed ? snapshot.getEvents(window) : snapshot.getEvents();
+    }
+    int from = Math.min(offset, events.size());
+    int to = (int) Math.min((long) from + limit, events.size());
+    for (Event event : events.subList(from, to)) {
+      gson.toJson(event, Event.class, writer);
+    }
+    writer.endArray();
+    writer.flush();
+  }
+
+  /**
+   * Returns the integer parameter {@code name}, or {@code fallback} if it is not given.
+   */
+  private static int parseInt(HttpServletRequest request, String name, int fallback) {
+    String value = request.getParameter(name);
+    return value == null ? fallback : Integer.parseInt(value);
   }
 }
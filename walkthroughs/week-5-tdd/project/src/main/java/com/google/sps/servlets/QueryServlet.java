@@ -14,14 +14,19 @@
 
 package com.google.sps.servlets;
 
+import com.google.sps.EventStore;
 import com.google.sps.Events;
 import com.google.sps.FindMeetingQuery;
 import com.google.sps.MeetingRequest;
+import com.google.sps.QueryCache;
 import com.google.sps.TimeRange;
 import com.google.gson.Gson;
+import com.google.gson.JsonParseException;
+import com.google.gson.stream.JsonWriter;
 import java.io.IOException;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import javax.servlet.annotation.WebServlet;
 import javax.servlet.http.HttpServlet;
 import javax.servlet.http.HttpServletRequest;
@@ -29,23 +34,55 @@ import javax.servlet.http.HttpServletResponse;
 
 @WebServlet("/query")
 public class QueryServlet extends HttpServlet {
+  // The calendar, starting out with the sample events. Changed through EventsServlet and shared
+  // with the other servlets.
+  static final EventStore STORE = new EventStore(Arrays.asList(Events.events));
+
+  // Many people ask the same question, so keep the answers to the most recent ones. Entries are
+  // tied to the version of the calendar, so a change to it is never hidden by them.
+  private static final int CACHE_CAPACITY = 1024;
+  private static final QueryCache<Collection<TimeRange>> CACHE = new QueryCache<>(CACHE_CAPACITY);
+
   @Override
   public void doPost(HttpServletRequest request, HttpServletResponse response) throws IOException {
     Gson gson = new Gson();
 
-    // Convert the JSON to an instance of MeetingRequest.
-    MeetingRequest meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    // Convert the JSON to an instance of MeetingRequest. An empty body comes out as null.
+    MeetingRequest meetingRequest;
+    try {
+      meetingRequest = gson.fromJson(request.getReader(), MeetingRequest.class);
+    } catch (JsonParseException e) {
+      meetingRequest = null;
+    }
+    if (meetingRequest == null || !meetingRequest.isValid()) {
+      response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Invalid meeting request.");
+      return;
+    }
 
-    // Find the possible meeting times.
+    // Find the possible meeting times, unless the answer is cached. The whole query runs against
+    // one snapshot, even if the calendar changes meanwhile.
     FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
-    Collection<TimeRange> answer =
-        findMeetingQuery.query(Arrays.asList(Events.events), meetingRequest);
-
-    // Convert the times to JSON
-    String jsonResponse = gson.toJson(answer);
+    EventStore.Snapshot snapshot = STORE.snapshot();
+    Collection<TimeRange> answer = CACHE.get(meetingRequest, snapshot.getVersion(),
+        cacheMiss -> Collections.unmodifiableCollection(
+            findMeetingQuery.query(snapshot.getIndex(), cacheMiss)));
 
-    // Send the JSON back as the response
+    // Stream the times back as JSON
     response.setContentType("application/json");
-    response.getWriter().println(jsonResponse);
+    JsonWriter writer = new JsonWriter(response.getWriter());
+    writeTimes(gson, answer, writer);
+    writer.flush();
+  }
+
+  /**
+   * Writes {@code times} to {@code writer} as a JSON array, one range at a time.
+   */
+  static void writeTimes(Gson gson, Collection<TimeRange> times, JsonWriter writer)
+      throws IOException {
+    writer.beginArray();
+    for (TimeRange time : times) {
+      gson.toJson(time, TimeRange.class, writer);
+    }
+    writer.endArray();
   }
 }
@@ -0,0 +1,44 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps.servlets;
+
+import com.google.sps.QueryStats;
+import com.google.gson.Gson;
+import java.io.IOException;
+import javax.servlet.annotation.WebServlet;
+import javax.servlet.http.HttpServlet;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * Reports how the meeting queries answered by {@link QueryServlet} and {@link BatchQueryServlet}
+ * went: counts, latency percentiles in microseconds, and the number of events looked at. Answers
+ * served from the query cache never run a query, so they are not counted. A DELETE starts the
+ * numbers over, for measuring one change at a time.
+ */
+@WebServlet("/stats")
+public class StatsServlet extends HttpServlet {
+  @Override
+  public void doGet(HttpServletRequest request, HttpServletResponse response) throws IOException {
+    response.setContentType("application/json");
+    new Gson().toJson(QueryStats.GLOBAL.snapshot(), response.getWriter());
+  }
+
+  @Override
+  public void doDelete(HttpServletRequest request, HttpServletResponse response) {
+    QueryStats.GLOBAL.reset();
+    response.setStatus(HttpServletResponse.SC_NO_CONTENT);
+  }
+}
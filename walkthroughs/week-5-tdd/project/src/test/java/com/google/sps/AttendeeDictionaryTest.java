@@ -0,0 +1,54 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeDictionaryTest {
+  private final AttendeeDictionary dictionary = new AttendeeDictionary();
+
+  @Test
+  public void sameNameGetsSameId() {
+    Object owner = new Object();
+    int[] ids = dictionary.intern(owner, new String[] {"Person A", "Person B", "Person A"});
+
+    Assert.assertEquals(ids[0], ids[2]);
+    Assert.assertNotEquals(ids[0], ids[1]);
+    Assert.assertEquals(ids[1], dictionary.lookup("Person B"));
+    Assert.assertEquals(-1, dictionary.lookup("Person C"));
+  }
+
+  @Test
+  public void namesAreDroppedOnceNobodyUsesThem() {
+    int[] first = dictionary.intern(new Object(), new String[] {"Person A", "Person B"});
+    int[] second = dictionary.intern(new Object(), new String[] {"Person A"});
+
+    dictionary.release(first);
+
+    Assert.assertEquals(second[0], dictionary.lookup("Person A"));
+    Assert.assertEquals(-1, dictionary.lookup("Person B"));
+
+    // B's id is free again, so the dictionary does not grow.
+    int[] third = dictionary.intern(new Object(), new String[] {"Person C"});
+
+    Assert.assertEquals(first[1], third[0]);
+    Assert.assertEquals(2, dictionary.size());
+  }
+}
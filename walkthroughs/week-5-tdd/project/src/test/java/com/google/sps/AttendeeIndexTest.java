@@ -0,0 +1,133 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class AttendeeIndexTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final TimeRange RANGE_0800_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 0), TimeRange.getTimeInMinutes(9, 0), false);
+  private static final TimeRange RANGE_0830_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 30), TimeRange.getTimeInMinutes(9, 0), false);
+  private static final TimeRange RANGE_1000_1100 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(10, 0), TimeRange.getTimeInMinutes(11, 0), false);
+
+  @Test
+  public void busyTimesAreSortedByStart() {
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(
+        new Event("Event 1", RANGE_1000_1100, Arrays.asList(PERSON_A)),
+        new Event("Event 2", RANGE_0830_0900, Arrays.asList(PERSON_A, PERSON_B)),
+        new Event("Event 3", RANGE_0800_0900, Arrays.asList(PERSON_A))));
+
+    Assert.assertEquals(Arrays.asList(RANGE_0800_0900, RANGE_0830_0900, RANGE_1000_1100),
+        index.getBusyTimes(PERSON_A));
+    Assert.assertEquals(Arrays.asList(RANGE_0830_0900), index.getBusyTimes(PERSON_B));
+  }
+
+  @Test
+  public void unknownAttendeeIsFree() {
+    AttendeeIndex index = new AttendeeIndex(
+        Arrays.asList(new Event("Event 1", RANGE_1000_1100, Arrays.asList(PERSON_A))));
+
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_C));
+  }
+
+  @Test
+  public void removeDropsOnlyOneMatchingRange() {
+    // Two identical events for the same person. Removing one should keep the other.
+    Event event = new Event("Event 1", RANGE_0830_0900, Arrays.asList(PERSON_A));
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(
+        event, event, new Event("Event 2", RANGE_0800_0900, Arrays.asList(PERSON_A))));
+
+    Assert.assertTrue(index.remove(event));
+
+    List<TimeRange> expected = Arrays.asList(RANGE_0800_0900, RANGE_0830_0900);
+    Assert.assertEquals(expected, index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void removeMissingEvent() {
+    AttendeeIndex index = new AttendeeIndex(
+        Arrays.asList(new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A))));
+
+    Assert.assertFalse(
+        index.remove(new Event("Event 2", RANGE_1000_1100, Arrays.asList(PERSON_A, PERSON_B))));
+    Assert.assertEquals(Arrays.asList(RANGE_0800_0900), index.getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void bitmapFollowsAddAndRemove() {
+    Event early = new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A));
+    Event overlapping = new Event("Event 2", RANGE_0830_0900, Arrays.asList(PERSON_A));
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(early, overlapping));
+
+    BitSet expected = new BitSet();
+    expected.set(RANGE_0800_0900.start(), RANGE_0800_0900.end());
+    Assert.assertEquals(expected, index.getBusyBitmap(PERSON_A));
+
+    // The minutes still covered by the other event must stay busy.
+    index.remove(early);
+    expected.clear();
+    expected.set(RANGE_0830_0900.start(), RANGE_0830_0900.end());
+    Assert.assertEquals(expected, index.getBusyBitmap(PERSON_A));
+
+    index.remove(overlapping);
+    Assert.assertNull(index.getBusyBitmap(PERSON_A));
+  }
+
+  @Test
+  public void busyTimesInWindow() {
+    // A long event starting well before the window must still be found.
+    TimeRange longEvent = TimeRange.fromStartDuration(0, 10 * 60);
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(
+        new Event("Event 1", longEvent, Arrays.asList(PERSON_A)),
+        new Event("Event 2", RANGE_0800_0900, Arrays.asList(PERSON_A)),
+        new Event("Event 3", RANGE_1000_1100, Arrays.asList(PERSON_A))));
+
+    TimeRange window = TimeRange.fromStartEnd(
+        TimeRange.getTimeInMinutes(9, 0), TimeRange.getTimeInMinutes(10, 0), false);
+
+    Assert.assertEquals(Arrays.asList(longEvent), index.getBusyTimes(PERSON_A, window));
+    Assert.assertEquals(Collections.emptyList(), index.getBusyTimes(PERSON_B, window));
+  }
+
+  @Test
+  public void copyDoesNotChangeOriginal() {
+    AttendeeIndex original = new AttendeeIndex(
+        Arrays.asList(new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A))));
+
+    AttendeeIndex copy = new AttendeeIndex(original);
+    copy.add(new Event("Event 2", RANGE_1000_1100, Arrays.asList(PERSON_A)));
+    copy.remove(new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A)));
+
+    Assert.assertEquals(Arrays.asList(RANGE_0800_0900), original.getBusyTimes(PERSON_A));
+    Assert.assertTrue(original.getBusyBitmap(PERSON_A).get(RANGE_0800_0900.start()));
+    Assert.assertEquals(Arrays.asList(RANGE_1000_1100), copy.getBusyTimes(PERSON_A));
+    Assert.assertFalse(copy.getBusyBitmap(PERSON_A).get(RANGE_0800_0900.start()));
+  }
+}
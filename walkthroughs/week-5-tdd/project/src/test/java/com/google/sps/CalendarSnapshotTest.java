@@ -0,0 +1,127 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class CalendarSnapshotTest {
+  private static final String[] PEOPLE =
+      {"Amelia", "Emma", "Oliver", "Zoë", "Åsa", "Person A", "Person B", "Person C"};
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final FindMeetingQuery query = new FindMeetingQuery();
+  private final SnapshotMeetingQuery snapshotQuery = new SnapshotMeetingQuery();
+
+  @Test
+  public void mappedSnapshotMatchesIndex() throws IOException {
+    Random random = new Random(17);
+    List<Event> events = randomEvents(random, 500);
+    Path path = folder.newFile("calendar.snapshot").toPath();
+    try (OutputStream out = Files.newOutputStream(path)) {
+      CalendarSnapshot.write(events, out);
+    }
+
+    CalendarSnapshot snapshot = CalendarSnapshot.map(path);
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    Assert.assertEquals(events.size(), snapshot.size());
+    for (int i = 0; i < 200; i++) {
+      MeetingRequest request = new MeetingRequest(
+          Arrays.asList(PEOPLE[random.nextInt(PEOPLE.length)], "Nobody"), 15 + random.nextInt(60));
+      request.addOptionalAttendee(PEOPLE[random.nextInt(PEOPLE.length)]);
+      TimeRange horizon = TimeRange.fromDays(random.nextInt(5), 1 + random.nextInt(3));
+
+      Assert.assertEquals(
+          query.query(index, request, horizon), snapshotQuery.query(snapshot, request, horizon));
+    }
+  }
+
+  @Test
+  public void emptyCalendar() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarSnapshot.write(new ArrayList<Event>(), out);
+
+    CalendarSnapshot snapshot = CalendarSnapshot.wrap(ByteBuffer.wrap(out.toByteArray()));
+    Collection<TimeRange> actual =
+        snapshotQuery.query(snapshot, new MeetingRequest(Arrays.asList("Person A"), 30));
+
+    Assert.assertEquals(0, snapshot.size());
+    Assert.assertEquals(Arrays.asList(TimeRange.WHOLE_DAY), actual);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsTruncatedSnapshot() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarSnapshot.write(randomEvents(new Random(1), 10), out);
+    byte[] bytes = out.toByteArray();
+
+    CalendarSnapshot.wrap(ByteBuffer.wrap(bytes, 0, bytes.length - 1));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsOffsetsOutOfRange() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    CalendarSnapshot.write(Arrays.asList(new Event("Event 1", TimeRange.fromStartDuration(0, 30),
+        Arrays.asList("Person A", "Person B"))), out);
+    ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+
+    // The names take 16 bytes. Point the second one, after the header and the one event's start
+    // and duration, past them.
+    buffer.putInt(7 * Integer.BYTES + 2 * Integer.BYTES + Integer.BYTES, 20);
+    CalendarSnapshot.wrap(buffer);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsUnpairedSurrogates() throws IOException {
+    // Both names would be written as a replacement character.
+    CalendarSnapshot.write(Arrays.asList(new Event("Event 1", TimeRange.fromStartDuration(0, 30),
+        Arrays.asList("\ud800", "\udc00"))), new ByteArrayOutputStream());
+  }
+
+  private static List<Event> randomEvents(Random random, int count) {
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < count; i++) {
+      List<String> attendees = new ArrayList<>();
+      for (String person : PEOPLE) {
+        if (random.nextInt(4) == 0) {
+          attendees.add(person);
+        }
+      }
+      TimeRange when = TimeRange.fromStartDuration(
+          random.nextInt(6 * TimeRange.MINUTES_PER_DAY), random.nextInt(4 * 60));
+      events.add(new Event("Event " + i, when, attendees));
+    }
+    return events;
+  }
+}
@@ -0,0 +1,172 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventStoreTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final TimeRange RANGE_0800_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 0), TimeRange.getTimeInMinutes(9, 0), false);
+  private static final TimeRange RANGE_1000_1100 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(10, 0), TimeRange.getTimeInMinutes(11, 0), false);
+
+  private static final Event EVENT_A =
+      new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A));
+  private static final Event EVENT_B =
+      new Event("Event 2", RANGE_1000_1100, Arrays.asList(PERSON_B));
+
+  @Test
+  public void initialEventsAreIndexed() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A, EVENT_B));
+
+    EventStore.Snapshot snapshot = store.snapshot();
+
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(EVENT_A, EVENT_B)), new HashSet<>(snapshot.getEvents()));
+    Assert.assertEquals(
+        Arrays.asList(RANGE_0800_0900), snapshot.getIndex().getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void addUpdateAndDelete() {
+    EventStore store = new EventStore();
+
+    long id = store.add(EVENT_A);
+    Assert.assertEquals(
+        Arrays.asList(RANGE_0800_0900), store.snapshot().getIndex().getBusyTimes(PERSON_A));
+
+    Event moved = new Event("Event 1", RANGE_1000_1100, Arrays.asList(PERSON_A, PERSON_B));
+    Assert.assertTrue(store.update(id, moved));
+    Assert.assertEquals(Arrays.asList(moved), store.snapshot().getEvents());
+    Assert.assertEquals(
+        Arrays.asList(RANGE_1000_1100), store.snapshot().getIndex().getBusyTimes(PERSON_A));
+    Assert.assertEquals(
+        Arrays.asList(RANGE_1000_1100), store.snapshot().getIndex().getBusyTimes(PERSON_B));
+
+    Assert.assertTrue(store.delete(id));
+    Assert.assertEquals(Collections.emptyList(), store.snapshot().getEvents());
+    Assert.assertEquals(
+        Collections.emptyList(), store.snapshot().getIndex().getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void missingIdIsRejected() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A));
+    long version = store.snapshot().getVersion();
+
+    Assert.assertFalse(store.update(42, EVENT_B));
+    Assert.assertFalse(store.delete(42));
+    Assert.assertEquals(version, store.snapshot().getVersion());
+  }
+
+  @Test
+  public void deleteKeepsOtherIds() {
+    EventStore store = new EventStore();
+    long first = store.add(EVENT_A);
+    long second = store.add(EVENT_B);
+
+    Assert.assertTrue(store.delete(first));
+    Assert.assertTrue(store.delete(second));
+    Assert.assertEquals(Collections.emptyList(), store.snapshot().getEvents());
+  }
+
+  @Test
+  public void oldSnapshotsDoNotChange() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A));
+    EventStore.Snapshot before = store.snapshot();
+
+    store.add(new Event("Event 3", RANGE_1000_1100, Arrays.asList(PERSON_A)));
+
+    EventStore.Snapshot after = store.snapshot();
+    Assert.assertTrue(after.getVersion() > before.getVersion());
+    Assert.assertEquals(Arrays.asList(EVENT_A), before.getEvents());
+    Assert.assertEquals(
+        Arrays.asList(RANGE_0800_0900), before.getIndex().getBusyTimes(PERSON_A));
+    Assert.assertEquals(
+        Arrays.asList(RANGE_0800_0900, RANGE_1000_1100),
+        after.getIndex().getBusyTimes(PERSON_A));
+  }
+
+  @Test
+  public void eventsInWindow() {
+    EventStore store = new EventStore(Arrays.asList(EVENT_A, EVENT_B));
+    TimeRange window = TimeRange.fromStartDuration(TimeRange.getTimeInMinutes(8, 30), 60);
+
+    Assert.assertEquals(Arrays.asList(EVENT_A), store.snapshot().getEvents(window));
+
+    store.add(new Event("Event 3", window, Arrays.asList(PERSON_B)));
+    Assert.assertEquals(2, store.snapshot().getEvents(window).size());
+  }
+
+  @Test
+  public void eventsOfAttendee() {
+    Event both = new Event("Event 3", RANGE_0800_0900, Arrays.asList(PERSON_A, PERSON_B));
+    Event zero = new Event("Event 4", TimeRange.fromStartDuration(RANGE_1000_1100.end(), 0),
+        Arrays.asList(PERSON_A));
+    EventStore store = new EventStore(Arrays.asList(EVENT_B, EVENT_A, both, zero));
+    EventStore.Snapshot snapshot = store.snapshot();
+
+    Assert.assertEquals(3, snapshot.getEvents(PERSON_A).size());
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(EVENT_B, both)), new HashSet<>(snapshot.getEvents(PERSON_B)));
+    Assert.assertEquals(Collections.emptyList(), snapshot.getEvents("Person C"));
+
+    // Every window, including empty ones, has to agree with filtering each event by hand.
+    for (int start = RANGE_0800_0900.start() - 30; start <= RANGE_1000_1100.end() + 30;
+        start += 15) {
+      for (int duration = 0; duration <= 150; duration += 15) {
+        TimeRange window = TimeRange.fromStartDuration(start, duration);
+        for (String attendee : Arrays.asList(PERSON_A, PERSON_B)) {
+          HashSet<Event> expected = new HashSet<>();
+          for (Event event : snapshot.getEvents()) {
+            if (event.getAttendees().contains(attendee) && event.getWhen().overlaps(window)) {
+              expected.add(event);
+            }
+          }
+          Assert.assertEquals(expected, new HashSet<>(snapshot.getEvents(attendee, window)));
+        }
+      }
+    }
+  }
+
+  @Test
+  public void eventsOfAttendeeFollowChanges() {
+    Event late = new Event("Event 3", RANGE_1000_1100, Arrays.asList(PERSON_A));
+    EventStore store = new EventStore(Arrays.asList(late));
+    EventStore.Snapshot before = store.snapshot();
+
+    long id = store.add(EVENT_A);
+    Assert.assertEquals(Arrays.asList(EVENT_A, late), store.snapshot().getEvents(PERSON_A));
+
+    store.update(id, EVENT_B);
+    Assert.assertEquals(Arrays.asList(late), store.snapshot().getEvents(PERSON_A));
+    Assert.assertEquals(Arrays.asList(EVENT_B), store.snapshot().getEvents(PERSON_B));
+
+    store.delete(id);
+    Assert.assertEquals(Collections.emptyList(), store.snapshot().getEvents(PERSON_B));
+    Assert.assertEquals(Arrays.asList(late), before.getEvents(PERSON_A));
+  }
+}
@@ -0,0 +1,63 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import com.google.gson.Gson;
+import java.util.Arrays;
+import java.util.HashSet;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+
+  private static final TimeRange RANGE_0800_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 0), TimeRange.getTimeInMinutes(9, 0), false);
+
+  @Test
+  public void attendeesAreASet() {
+    Event event =
+        new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_B, PERSON_A, PERSON_B));
+
+    Assert.assertEquals(new HashSet<>(Arrays.asList(PERSON_A, PERSON_B)), event.getAttendees());
+    Assert.assertTrue(event.getAttendees().contains(PERSON_A));
+    Assert.assertFalse(event.getAttendees().contains("Nobody Invited"));
+  }
+
+  @Test
+  public void equalityIgnoresAttendeeOrder() {
+    Event event = new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A, PERSON_B));
+    Event reordered = new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_B, PERSON_A));
+    Event fewer = new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A));
+
+    Assert.assertEquals(event, reordered);
+    Assert.assertNotEquals(event, fewer);
+  }
+
+  @Test
+  public void jsonHasAttendeeNames() {
+    Event event = new Event("Event 1", RANGE_0800_0900, Arrays.asList(PERSON_A));
+
+    String json = new Gson().toJson(event);
+
+    Assert.assertTrue(json, json.contains("\"attendees\":[\"Person A\"]"));
+    Assert.assertFalse(json, json.contains("attendeeIds"));
+  }
+}
@@ -0,0 +1,87 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class EventTimelineTest {
+  @Test
+  public void changesLeaveOldVersionsAlone() {
+    Event event = new Event("Event 1", TimeRange.fromStartDuration(60, 30), Arrays.asList("A"));
+    EventTimeline empty = EventTimeline.empty();
+
+    EventTimeline added = empty.with(1, event);
+
+    Assert.assertEquals(Arrays.asList(event), added.overlapping(TimeRange.WHOLE_DAY));
+    Assert.assertEquals(Collections.emptyList(), empty.overlapping(TimeRange.WHOLE_DAY));
+    Assert.assertEquals(
+        Collections.emptyList(), added.without(1, event).overlapping(TimeRange.WHOLE_DAY));
+    Assert.assertSame(added, added.without(2, event));
+  }
+
+  @Test
+  public void matchesOverlapsAfterChanges() {
+    // Short events, long ones and ones with no duration, some sharing starts, with every window
+    // checked against filtering each event by hand.
+    Random random = new Random(7);
+    Map<Long, Event> expected = new HashMap<>();
+    EventTimeline timeline = EventTimeline.empty();
+    for (long id = 0; id < 2000; id++) {
+      int start = random.nextInt(200);
+      int duration = random.nextInt(4) == 0 ? 0 : random.nextInt(random.nextBoolean() ? 5 : 60);
+      Event event = new Event(
+          "Event " + id, TimeRange.fromStartDuration(start, duration), Arrays.asList("A"));
+      expected.put(id, event);
+      timeline = timeline.with(id, event);
+      if (random.nextInt(3) == 0) {
+        long removed = random.nextInt((int) id + 1);
+        if (expected.containsKey(removed)) {
+          timeline = timeline.without(removed, expected.remove(removed));
+        }
+      }
+    }
+
+    for (int start = -10; start <= 270; start += 7) {
+      for (int duration = 0; duration <= 40; duration += 5) {
+        TimeRange window = TimeRange.fromStartDuration(start, duration);
+        List<Event> overlapping = new ArrayList<>();
+        for (Event event : expected.values()) {
+          if (event.getWhen().overlaps(window)) {
+            overlapping.add(event);
+          }
+        }
+        List<Event> actual = timeline.overlapping(window);
+        Assert.assertEquals(overlapping.size(), actual.size());
+        Assert.assertTrue(actual.containsAll(overlapping));
+        for (int i = 1; i < actual.size(); i++) {
+          Assert.assertTrue(
+              actual.get(i - 1).getWhen().start() <= actual.get(i).getWhen().start());
+        }
+      }
+    }
+  }
+}
@@ -14,11 +14,15 @@
  
 package com.google.sps;
  
+import java.time.DayOfWeek;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Random;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -37,6 +41,7 @@ public final class FindMeetingQueryTest {
   private static final String PERSON_C = "Person C";
  
   // All dates are the first day of the year 2020.
+  private static final int TIME_0500AM = TimeRange.getTimeInMinutes(5, 0);
   private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
   private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
   private static final int TIME_0845AM = TimeRange.getTimeInMinutes(8, 45);
@@ -46,8 +51,11 @@ public final class FindMeetingQueryTest {
   private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
   private static final int TIME_1230PM = TimeRange.getTimeInMinutes(12, 30);
   private static final int TIME_0100PM = TimeRange.getTimeInMinutes(13, 0);
+  private static final int TIME_0200PM = TimeRange.getTimeInMinutes(14, 0);
+  private static final int TIME_0300PM = TimeRange.getTimeInMinutes(15, 0);
   private static final int TIME_0400PM = TimeRange.getTimeInMinutes(16, 0);
   private static final int TIME_0430PM = TimeRange.getTimeInMinutes(16, 30);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
  
   private static final int DURATION_NEGATIVE = -1;
   private static final int DURATION_15_MINUTES = 15;
@@ -467,4 +475,330 @@ public final class FindMeetingQueryTest {
  
     Assert.assertEquals(expected, actual);
   }
+
+  @Test
+  public void unsortedEventsWithSharedAttendees() {
+    // Events arrive in no particular order, one of them is attended by both people in the request
+    // and one by nobody in it. Only the times of requested people should restrict the options.
+    //
+    // Events  :          |--B--|   |-C-|
+    //              |--A,B--|
+    // Day     : |---------------------------|
+    // Options : |--|           |------------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0900AM, TIME_1000AM, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1100AM, TIME_1230PM, false),
+            Arrays.asList(PERSON_C)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_0800AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A, PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void firstGapTooShort() {
+    // The gap before the first event is shorter than the meeting, so it must not be an option.
+    //
+    // Events  :   |--A--|
+    // Day     : |-------------------|
+    // Options :         |-----------|
+
+    Collection<Event> events = Arrays.asList(new Event("Event 1",
+        TimeRange.fromStartEnd(15, TIME_0900AM, false), Arrays.asList(PERSON_A)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.query(events, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void indexMatchesEventScan() {
+    // Querying through an AttendeeIndex must give the same answer as scanning the events.
+    Collection<Event> events = Arrays.asList(Events.events);
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList("Amelia", "Emma"), DURATION_30_MINUTES),
+        new MeetingRequest(Arrays.asList("Isabella", "Logan", "Oliver"), DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList("Nobody"), DURATION_2_HOUR));
+    requests.get(0).addOptionalAttendee("Liam");
+    requests.get(1).addOptionalAttendee("James");
+    requests.get(1).addOptionalAttendee("Ava");
+
+    for (MeetingRequest request : requests) {
+      Assert.assertEquals(query.query(events, request), query.query(index, request));
+    }
+  }
+
+  @Test
+  public void batchAnswersEachRequestInOrder() {
+    Collection<Event> events = Arrays.asList(Events.events);
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    String[] people = {"Amelia", "Ava", "Emma", "Isabella", "James", "Liam", "Logan", "Oliver"};
+    for (int i = 0; i < people.length; i++) {
+      int duration = DURATION_30_MINUTES * (i % 3 + 1);
+      MeetingRequest request =
+          new MeetingRequest(Arrays.asList(people[i], people[(i + 3) % people.length]), duration);
+      request.addOptionalAttendee(people[(i + 5) % people.length]);
+      requests.add(request);
+    }
+
+    List<Collection<TimeRange>> actual = query.queryAll(events, requests);
+
+    Assert.assertEquals(requests.size(), actual.size());
+    for (int i = 0; i < requests.size(); i++) {
+      Assert.assertEquals(query.query(events, requests.get(i)), actual.get(i));
+    }
+  }
+
+  @Test
+  public void bitmapMatchesEventScan() {
+    // The bitmap mode must give the same answer as the sweep, including the optional fallback.
+    Collection<Event> events = Arrays.asList(Events.events);
+    AttendeeIndex index = new AttendeeIndex(events);
+
+    List<MeetingRequest> requests = Arrays.asList(
+        new MeetingRequest(Arrays.asList("Amelia", "Emma"), DURATION_30_MINUTES),
+        new MeetingRequest(Arrays.asList("Isabella", "Logan", "Oliver"), DURATION_1_HOUR),
+        new MeetingRequest(Arrays.asList("Nobody"), DURATION_WHOLE_DAY),
+        new MeetingRequest(Arrays.asList("Liam"), DURATION_2_HOUR));
+    requests.get(0).addOptionalAttendee("Liam");
+    requests.get(1).addOptionalAttendee("James");
+    requests.get(1).addOptionalAttendee("Ava");
+    requests.get(3).addOptionalAttendee("Amelia");
+
+    for (MeetingRequest request : requests) {
+      Assert.assertEquals(query.query(events, request), query.queryBitmap(index, request));
+    }
+  }
+
+  @Test
+  public void bitmapJustEnoughRoom() {
+    // Events  : |--A--|     |----A----|
+    // Day     : |---------------------|
+    // Options :       |-----|
+
+    AttendeeIndex index = new AttendeeIndex(Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0830AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_A))));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    Collection<TimeRange> actual = query.queryBitmap(index, request);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void multiDayHorizon() {
+    // Events are in minutes since the start of day 100. A is busy from 8:00 on the first day
+    // through the end of the second day, except for a 30 minute gap. Only one 1 hour option fits
+    // before the third day, and the third day is free until the end of the horizon.
+    //
+    // Events  :       |-----A-----|   |------------A------------|
+    // Days    : |-----1-----|-----2-----|-----3-----|
+    // Options : |-----|                             |-----------|
+
+    int day1 = 100 * TimeRange.MINUTES_PER_DAY;
+    int day3 = 102 * TimeRange.MINUTES_PER_DAY;
+    int gapStart = day1 + TimeRange.MINUTES_PER_DAY + TIME_0900AM;
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(day1 + TIME_0800AM, gapStart, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(gapStart + DURATION_30_MINUTES, day3, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0800AM, DURATION_2_HOUR),
+            Arrays.asList(PERSON_A)));
+
+    TimeRange horizon = TimeRange.fromDays(100, 3);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(day1, day1 + TIME_0800AM, false),
+            TimeRange.fromStartEnd(day3, horizon.end(), false));
+
+    Assert.assertEquals(expected, query.query(events, request, horizon));
+    Assert.assertEquals(expected, query.query(new AttendeeIndex(events), request, horizon));
+  }
+
+  @Test
+  public void horizonAllowsMeetingsLongerThanADay() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_WHOLE_DAY + 1);
+    TimeRange horizon = TimeRange.fromDays(0, 2);
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request, horizon);
+    Collection<TimeRange> expected = Arrays.asList(horizon);
+
+    Assert.assertEquals(expected, actual);
+  }
+
+
+
+
+
+
+
+  @Test
+  public void parallelMatchesSequential() {
+    // Enough events to be split into several slices, with some that last no time at all.
+    Random random = new Random(7);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, "Person D", "Person E", "Person F"};
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 3 * FindMeetingQuery.PARALLEL_THRESHOLD; i++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      int duration = random.nextInt(10) == 0 ? 0 : 1 + random.nextInt(3);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, duration),
+          Arrays.asList(people[random.nextInt(people.length)])));
+    }
+
+    List<MeetingRequest> requests = new ArrayList<>();
+    requests.add(new MeetingRequest(Arrays.asList(PERSON_A), 1));
+    requests.add(new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 0));
+    MeetingRequest withOptional = new MeetingRequest(Arrays.asList(PERSON_C), 2);
+    withOptional.addOptionalAttendee("Person D");
+    requests.add(withOptional);
+    requests.add(new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES));
+
+    for (MeetingRequest request : requests) {
+      Assert.assertEquals(query.query(events, request), query.queryParallel(events, request));
+    }
+  }
+
+  @Test
+  public void parallelHonorsWorkingHours() {
+    Random random = new Random(11);
+    String[] people = {PERSON_A, PERSON_B, PERSON_C, "Person D"};
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 3 * FindMeetingQuery.PARALLEL_THRESHOLD; i++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      events.add(new Event("Event " + i, TimeRange.fromStartDuration(start, random.nextInt(2)),
+          Arrays.asList(people[random.nextInt(people.length)])));
+    }
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    workingHours.put("Person D", WorkingHours.of(TIME_0900AM, TIME_0500PM, -5 * 60));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 1);
+    request.addOptionalAttendee("Person D");
+
+    Assert.assertEquals(query.query(events, request, workingHours, TimeRange.WHOLE_DAY),
+        query.queryParallel(events, request, workingHours, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void intervalTreeMatchesEventScan() {
+    // Events on the day before and after the horizon must not matter.
+    TimeRange day = TimeRange.fromDays(1, 1);
+    List<Event> events = new ArrayList<>();
+    for (int dayOffset = 0; dayOffset < 3; dayOffset++) {
+      for (Event event : Events.events) {
+        TimeRange when = event.getWhen();
+        events.add(new Event(event.getTitle(),
+            TimeRange.fromStartDuration(
+                when.start() + dayOffset * TimeRange.MINUTES_PER_DAY, when.duration()),
+            event.getAttendees()));
+      }
+    }
+    IntervalTree<Event> tree = new IntervalTree<>(events, Event::getWhen);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList("Amelia", "Emma"), DURATION_30_MINUTES);
+    request.addOptionalAttendee("Oliver");
+
+    Collection<TimeRange> expected = query.query(events, request, day);
+    Collection<TimeRange> actual = query.query(tree, request, day);
+
+    Assert.assertFalse(expected.isEmpty());
+    Assert.assertEquals(expected, actual);
+  }
+
+
+
+
+  @Test
+  public void onlyProposeTimesWithinEveryonesWorkingHours() {
+    // A works 9:00 to 17:00 UTC and B works 9:00 to 17:00 at UTC-5, which is 14:00 to 22:00 UTC.
+    // A is also busy from 14:00 to 15:00, so only 15:00 to 17:00 is left.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    workingHours.put(PERSON_B, WorkingHours.of(TIME_0900AM, TIME_0500PM, -5 * 60));
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0200PM, TIME_0300PM, false),
+            Arrays.asList(PERSON_A)));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0300PM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, query.query(events, request, workingHours));
+    Assert.assertEquals(expected, query.query(new AttendeeIndex(events), request, workingHours));
+  }
+
+  @Test
+  public void workingHoursOfDroppedOptionalAttendeesDoNotCount() {
+    // C only works at night, so there is no time that suits A and C, and C is dropped.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    workingHours.put(PERSON_C, WorkingHours.of(TimeRange.START_OF_DAY, TIME_0500AM, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    request.addOptionalAttendee(PERSON_C);
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request, workingHours);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void singleDayIgnoresWorkingDays() {
+    // The single day has no date, so A's hours apply even though A only works on Mondays.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0).onDays(
+        DayOfWeek.MONDAY));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request, workingHours);
+    Collection<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void workingHoursOverAHorizon() {
+    // Over three days, A is only available from 9:00 to 17:00 on each of them.
+    Map<String, WorkingHours> workingHours = new HashMap<>();
+    workingHours.put(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_1_HOUR);
+    TimeRange horizon = TimeRange.fromDays(10, 3);
+
+    Collection<TimeRange> actual = query.query(NO_EVENTS, request, workingHours, horizon);
+    List<TimeRange> expected = new ArrayList<>();
+    for (int day = 10; day < 13; day++) {
+      int midnight = day * TimeRange.MINUTES_PER_DAY;
+      expected.add(
+          TimeRange.fromStartEnd(midnight + TIME_0900AM, midnight + TIME_0500PM, false));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
 }
@@ -0,0 +1,117 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class FirstMeetingTimesQueryTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+  private final FirstMeetingTimesQuery query = new FirstMeetingTimesQuery();
+
+  @Test
+  public void findFirstStopsAfterN() {
+    // Events  :       |--A--|     |--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--2--|     |--3--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false)),
+        query.findFirst(events, request, 1));
+    Assert.assertEquals(
+        Arrays.asList(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false),
+            TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false)),
+        query.findFirst(events, request, 2));
+    Assert.assertEquals(
+        findMeetingQuery.query(events, request), query.findFirst(events, request, 5));
+  }
+
+  @Test
+  public void findFirstFallsBackToMandatoryAttendees() {
+    // Optional person C is busy all day, so the earliest option ignores them.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<TimeRange> expected =
+        Arrays.asList(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true));
+
+    Assert.assertEquals(expected, query.findFirst(events, request, 1));
+    Assert.assertEquals(expected,
+        query.findFirst(new AttendeeIndex(events), request, 1, TimeRange.WHOLE_DAY));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void findFirstRejectsNonPositiveCount() {
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    query.findFirst(NO_EVENTS, request, 0);
+  }
+
+  @Test
+  public void findFirstWithinWorkingHours() {
+    // A works from 9:00 to 17:00 and is busy until 9:30.
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)));
+    Map<String, WorkingHours> workingHours =
+        Collections.singletonMap(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> expected = Arrays.asList(
+        TimeRange.fromStartEnd(TIME_0900AM + DURATION_30_MINUTES, TIME_0500PM, false));
+
+    Assert.assertEquals(
+        expected, query.findFirst(events, request, 1, workingHours, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(expected, query.findFirst(
+        new AttendeeIndex(events), request, 1, workingHours, TimeRange.WHOLE_DAY));
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalTreeTest {
+  private static final TimeRange RANGE_0800_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 0), TimeRange.getTimeInMinutes(9, 0), false);
+  private static final TimeRange RANGE_0830_1000 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 30), TimeRange.getTimeInMinutes(10, 0), false);
+  private static final TimeRange RANGE_1000_1100 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(10, 0), TimeRange.getTimeInMinutes(11, 0), false);
+
+  private static final IntervalTree<TimeRange> TREE = new IntervalTree<>(
+      Arrays.asList(RANGE_0800_0900, RANGE_0830_1000, RANGE_1000_1100), Function.identity());
+
+  @Test
+  public void emptyTree() {
+    IntervalTree<TimeRange> tree =
+        new IntervalTree<>(Collections.<TimeRange>emptyList(), Function.identity());
+
+    Assert.assertEquals(0, tree.size());
+    Assert.assertEquals(Collections.emptyList(), tree.stabbing(0));
+    Assert.assertEquals(Collections.emptyList(), tree.overlapping(TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void stabbing() {
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(RANGE_0800_0900, RANGE_0830_1000)),
+        new HashSet<>(TREE.stabbing(TimeRange.getTimeInMinutes(8, 45))));
+    // Ends are exclusive.
+    Assert.assertEquals(
+        Arrays.asList(RANGE_1000_1100), TREE.stabbing(TimeRange.getTimeInMinutes(10, 0)));
+  }
+
+  @Test
+  public void overlappingAndContainment() {
+    TimeRange window = TimeRange.fromStartEnd(
+        TimeRange.getTimeInMinutes(9, 0), TimeRange.getTimeInMinutes(11, 0), false);
+
+    Assert.assertEquals(
+        new HashSet<>(Arrays.asList(RANGE_0830_1000, RANGE_1000_1100)),
+        new HashSet<>(TREE.overlapping(window)));
+    Assert.assertEquals(Arrays.asList(RANGE_1000_1100), TREE.containedIn(window));
+    Assert.assertEquals(
+        Arrays.asList(RANGE_0830_1000), TREE.containing(TimeRange.fromStartDuration(
+            TimeRange.getTimeInMinutes(9, 0), 30)));
+  }
+
+  @Test
+  public void matchesTimeRangeChecks() {
+    // Compare every query against checking each range one by one, including ranges that last no
+    // time at all.
+    Random random = new Random(3);
+    List<TimeRange> ranges = new ArrayList<>();
+    for (int i = 0; i < 500; i++) {
+      int start = random.nextInt(200);
+      int duration = random.nextInt(4) == 0 ? 0 : random.nextInt(40);
+      ranges.add(TimeRange.fromStartDuration(start, duration));
+    }
+    IntervalTree<TimeRange> tree = new IntervalTree<>(ranges, Function.identity());
+
+    for (int i = 0; i < 200; i++) {
+      int point = random.nextInt(240) - 20;
+      TimeRange window = TimeRange.fromStartDuration(point, random.nextInt(30));
+
+      assertSameRanges(filter(ranges, range -> range.contains(point)), tree.stabbing(point));
+      assertSameRanges(filter(ranges, range -> range.overlaps(window)), tree.overlapping(window));
+      assertSameRanges(filter(ranges, range -> window.contains(range)), tree.containedIn(window));
+      assertSameRanges(filter(ranges, range -> range.contains(window)), tree.containing(window));
+    }
+  }
+
+  private static List<TimeRange> filter(List<TimeRange> ranges, Predicate<TimeRange> keep) {
+    List<TimeRange> kept = new ArrayList<>();
+    for (TimeRange range : ranges) {
+      if (keep.test(range)) {
+        kept.add(range);
+      }
+    }
+    return kept;
+  }
+
+  private static void assertSameRanges(List<TimeRange> expected, List<TimeRange> actual) {
+    Comparator<TimeRange> order = TimeRange.ORDER_BY_START.thenComparing(TimeRange.ORDER_BY_END);
+    List<TimeRange> sortedExpected = new ArrayList<>(expected);
+    List<TimeRange> sortedActual = new ArrayList<>(actual);
+    Collections.sort(sortedExpected, order);
+    Collections.sort(sortedActual, order);
+    Assert.assertEquals(sortedExpected, sortedActual);
+  }
+}
@@ -0,0 +1,79 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class IntervalsTest {
+  @Test
+  public void packRoundTrips() {
+    long interval = Intervals.pack(-30, 2 * TimeRange.MINUTES_PER_DAY);
+
+    Assert.assertEquals(-30, Intervals.start(interval));
+    Assert.assertEquals(2 * TimeRange.MINUTES_PER_DAY, Intervals.end(interval));
+  }
+
+  @Test
+  public void sortOrdersByStart() {
+    Intervals intervals = new Intervals(1);
+    intervals.add(Intervals.pack(600, 660));
+    intervals.add(Intervals.pack(-60, 0));
+    intervals.add(Intervals.pack(480, 540));
+
+    intervals.sort();
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(-60, 0, false),
+            TimeRange.fromStartEnd(480, 540, false),
+            TimeRange.fromStartEnd(600, 660, false)),
+        intervals.toTimeRanges(0, intervals.size()));
+  }
+
+  @Test
+  public void insertAndRemoveKeepOrder() {
+    Intervals intervals = new Intervals();
+    intervals.insertSorted(Intervals.pack(600, 660));
+    intervals.insertSorted(Intervals.pack(480, 540));
+    intervals.insertSorted(Intervals.pack(480, 600));
+
+    Assert.assertTrue(intervals.removeSorted(Intervals.pack(480, 540)));
+    Assert.assertFalse(intervals.removeSorted(Intervals.pack(480, 540)));
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(480, 600, false),
+            TimeRange.fromStartEnd(600, 660, false)),
+        intervals.toTimeRanges(0, intervals.size()));
+  }
+
+  @Test
+  public void firstStartAfter() {
+    Intervals intervals = new Intervals();
+    intervals.add(Intervals.pack(480, 540));
+    intervals.add(Intervals.pack(600, 660));
+
+    Assert.assertEquals(0, intervals.firstStartAfter(479));
+    Assert.assertEquals(1, intervals.firstStartAfter(480));
+    Assert.assertEquals(2, intervals.firstStartAfter(600));
+  }
+}
@@ -0,0 +1,85 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class LatencyHistogramTest {
+  @Test
+  public void emptyHistogram() {
+    LatencyHistogram histogram = new LatencyHistogram();
+
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getValueAtPercentile(99), 0);
+    Assert.assertEquals(0, histogram.getMean(), 0);
+  }
+
+  @Test
+  public void bucketsCoverEveryValueInOrder() {
+    long[] values = {0, 1, 31, 32, 33, 63, 64, 65, 1000, 1L << 40, Long.MAX_VALUE - 1,
+        Long.MAX_VALUE};
+    for (long value : values) {
+      int index = LatencyHistogram.indexOf(value);
+      Assert.assertTrue(value + " <= end of its bucket",
+          value <= LatencyHistogram.highestValueAt(index));
+      if (index > 0) {
+        Assert.assertTrue(value + " > end of the previous bucket",
+            value > LatencyHistogram.highestValueAt(index - 1));
+      }
+    }
+  }
+
+  @Test
+  public void percentilesAreWithinBucketError() {
+    Random random = new Random(3);
+    long[] values = new long[10_000];
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < values.length; i++) {
+      values[i] = (long) Math.exp(random.nextDouble() * 20);
+      histogram.record(values[i]);
+    }
+    Arrays.sort(values);
+
+    for (double percentile : new double[] {0, 50, 90, 99, 99.9, 100}) {
+      long expected = values[Math.max(0, (int) Math.ceil(percentile / 100 * values.length) - 1)];
+      long actual = histogram.getValueAtPercentile(percentile);
+      Assert.assertTrue(percentile + ": " + actual + " >= " + expected, actual >= expected);
+      Assert.assertTrue(percentile + ": " + actual + " close to " + expected,
+          actual <= expected + expected / 16 + 1);
+    }
+    Assert.assertEquals(values.length, histogram.getCount());
+    Assert.assertEquals(values[values.length - 1], histogram.getMax());
+  }
+
+  @Test
+  public void resetForgetsValues() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    histogram.record(100);
+    histogram.record(-5);
+
+    Assert.assertEquals(2, histogram.getCount());
+    Assert.assertEquals(50, histogram.getMean(), 0);
+    histogram.reset();
+    Assert.assertEquals(0, histogram.getCount());
+    Assert.assertEquals(0, histogram.getMax());
+  }
+}
@@ -14,6 +14,7 @@
 
 package com.google.sps;
 
+import com.google.gson.Gson;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -44,4 +45,18 @@ public final class MeetingRequestTest {
     int expected = 0;
     Assert.assertEquals(expected, actual);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void parsedRequestsWithMissingAttendeesAreInvalid() {
+    Gson gson = new Gson();
+
+    Assert.assertTrue(gson.fromJson(
+        "{\"attendees\": [\"Person A\"], \"optional_attendees\": [], \"duration\": 30}",
+        MeetingRequest.class).isValid());
+    Assert.assertFalse(gson.fromJson(
+        "{\"attendees\": null, \"duration\": 30}", MeetingRequest.class).isValid());
+    Assert.assertFalse(gson.fromJson(
+        "{\"attendees\": [], \"optional_attendees\": [null], \"duration\": 30}",
+        MeetingRequest.class).isValid());
+  }
+}
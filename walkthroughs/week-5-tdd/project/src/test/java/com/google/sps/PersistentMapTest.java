@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PersistentMapTest {
+  @Test
+  public void changesLeaveOldVersionsAlone() {
+    PersistentMap<String, Integer> original = PersistentMap.<String, Integer>empty().put("a", 1);
+
+    PersistentMap<String, Integer> changed = original.put("a", 2).put("b", 3);
+
+    Assert.assertEquals(Integer.valueOf(1), original.get("a"));
+    Assert.assertNull(original.get("b"));
+    Assert.assertEquals(Integer.valueOf(2), changed.get("a"));
+    Assert.assertEquals(Integer.valueOf(3), changed.get("b"));
+    Assert.assertNull(changed.remove("a").get("a"));
+    Assert.assertEquals(Integer.valueOf(2), changed.get("a"));
+  }
+
+  @Test
+  public void removingAMissingKeyReturnsTheSameMap() {
+    PersistentMap<String, Integer> map = PersistentMap.<String, Integer>empty().put("a", 1);
+
+    Assert.assertSame(map, map.remove("b"));
+  }
+
+  @Test
+  public void keepsKeysWithTheSameHashApart() {
+    // "Aa" and "BB" have the same hash code.
+    PersistentMap<String, Integer> map =
+        PersistentMap.<String, Integer>empty().put("Aa", 1).put("BB", 2);
+
+    Assert.assertEquals(Integer.valueOf(1), map.get("Aa"));
+    Assert.assertEquals(Integer.valueOf(2), map.get("BB"));
+    Assert.assertNull(map.remove("Aa").get("Aa"));
+    Assert.assertEquals(Integer.valueOf(2), map.remove("Aa").get("BB"));
+  }
+
+  @Test
+  public void matchesHashMap() {
+    Random random = new Random(7);
+    Map<Integer, Integer> expected = new HashMap<>();
+    PersistentMap<Integer, Integer> actual = PersistentMap.empty();
+    for (int i = 0; i < 20000; i++) {
+      int key = random.nextInt(5000);
+      if (random.nextInt(3) == 0) {
+        expected.remove(key);
+        actual = actual.remove(key);
+      } else {
+        expected.put(key, i);
+        actual = actual.put(key, i);
+      }
+    }
+    for (int key = 0; key < 5000; key++) {
+      Assert.assertEquals(expected.get(key), actual.get(key));
+    }
+  }
+}
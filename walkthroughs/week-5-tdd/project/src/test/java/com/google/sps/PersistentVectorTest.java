@@ -0,0 +1,80 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class PersistentVectorTest {
+  @Test
+  public void changesLeaveOldVersionsAlone() {
+    PersistentVector<String> original = PersistentVector.of(Arrays.asList("a", "b", "c"));
+
+    PersistentVector<String> changed = original.with(1, "x").append("d");
+
+    Assert.assertEquals(Arrays.asList("a", "b", "c"), original);
+    Assert.assertEquals(Arrays.asList("a", "x", "c", "d"), changed);
+    Assert.assertEquals(Arrays.asList("a", "x", "c"), changed.dropLast());
+  }
+
+  @Test
+  public void matchesArrayListAcrossLevels() {
+    // Enough elements for the tree to grow and shrink through three levels.
+    Random random = new Random(7);
+    List<Integer> expected = new ArrayList<>();
+    PersistentVector<Integer> actual = PersistentVector.empty();
+    for (int i = 0; i < 5000; i++) {
+      expected.add(i);
+      actual = actual.append(i);
+    }
+    Assert.assertEquals(expected, PersistentVector.of(expected));
+
+    for (int i = 0; i < 5000; i++) {
+      int index = random.nextInt(expected.size());
+      expected.set(index, -i);
+      actual = actual.with(index, -i);
+      if (random.nextBoolean()) {
+        expected.remove(expected.size() - 1);
+        actual = actual.dropLast();
+      }
+    }
+    Assert.assertEquals(expected, actual);
+
+    while (!expected.isEmpty()) {
+      expected.remove(expected.size() - 1);
+      actual = actual.dropLast();
+      Assert.assertEquals(expected.size(), actual.size());
+    }
+    Assert.assertEquals(expected, actual.append(1).dropLast());
+  }
+
+  @Test(expected = IndexOutOfBoundsException.class)
+  public void rejectsIndexPastTheEnd() {
+    PersistentVector.of(Arrays.asList("a")).get(1);
+  }
+
+  @Test(expected = UnsupportedOperationException.class)
+  public void cannotBeChangedInPlace() {
+    PersistentVector.of(Arrays.asList("a")).set(0, "b");
+  }
+}
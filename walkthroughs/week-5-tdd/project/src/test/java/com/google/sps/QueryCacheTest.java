@@ -0,0 +1,119 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryCacheTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private AtomicInteger computations;
+  private Function<MeetingRequest, String> compute;
+
+  @Before
+  public void setUp() {
+    computations = new AtomicInteger();
+    compute = request -> "answer " + computations.incrementAndGet();
+  }
+
+  @Test
+  public void repeatedRequestIsComputedOnce() {
+    QueryCache<String> cache = new QueryCache<>(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    String first = cache.get(request, 0, compute);
+    String second = cache.get(request, 0, compute);
+
+    Assert.assertEquals("answer 1", first);
+    Assert.assertSame(first, second);
+    Assert.assertEquals(1, computations.get());
+  }
+
+  @Test
+  public void equivalentRequestsShareAnEntry() {
+    QueryCache<String> cache = new QueryCache<>(10);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+    MeetingRequest reordered =
+        new MeetingRequest(Arrays.asList(PERSON_B, PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    reordered.addOptionalAttendee(PERSON_C);
+
+    cache.get(request, 0, compute);
+    cache.get(reordered, 0, compute);
+
+    Assert.assertEquals(1, computations.get());
+  }
+
+  @Test
+  public void differentRequestsDoNotShareAnEntry() {
+    QueryCache<String> cache = new QueryCache<>(10);
+    MeetingRequest mandatory =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest optional = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    optional.addOptionalAttendee(PERSON_B);
+    MeetingRequest longer = new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), 60);
+
+    cache.get(mandatory, 0, compute);
+    cache.get(optional, 0, compute);
+    cache.get(longer, 0, compute);
+
+    Assert.assertEquals(3, computations.get());
+  }
+
+  @Test
+  public void newVersionIsRecomputed() {
+    QueryCache<String> cache = new QueryCache<>(10);
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    cache.get(request, 0, compute);
+    String answer = cache.get(request, 1, compute);
+
+    Assert.assertEquals("answer 2", answer);
+    Assert.assertEquals(1, cache.size());
+  }
+
+  @Test
+  public void leastRecentlyUsedIsEvicted() {
+    QueryCache<String> cache = new QueryCache<>(2);
+    MeetingRequest requestA = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+    MeetingRequest requestB = new MeetingRequest(Arrays.asList(PERSON_B), DURATION_30_MINUTES);
+    MeetingRequest requestC = new MeetingRequest(Arrays.asList(PERSON_C), DURATION_30_MINUTES);
+
+    cache.get(requestA, 0, compute);
+    cache.get(requestB, 0, compute);
+    cache.get(requestA, 0, compute);
+    cache.get(requestC, 0, compute);
+
+    // B was used least recently, so it had to make room for C.
+    cache.get(requestA, 0, compute);
+    Assert.assertEquals(3, computations.get());
+    cache.get(requestB, 0, compute);
+    Assert.assertEquals(4, computations.get());
+  }
+}
@@ -0,0 +1,94 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class QueryStatsTest {
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final Collection<Event> EVENTS = Arrays.asList(
+      new Event("Event 1", TimeRange.fromStartDuration(TIME_0900AM, 60), Arrays.asList("Person A")),
+      new Event("Event 2", TimeRange.WHOLE_DAY, Arrays.asList("Person B")),
+      new Event("Event 3", TimeRange.WHOLE_DAY, Arrays.asList("Person C")));
+
+  @Test
+  public void countsWorkDoneByEachQuery() {
+    QueryStats stats = new QueryStats();
+    FindMeetingQuery query = new FindMeetingQuery(stats);
+
+    // B is busy all day, so the optional attendee has to be dropped.
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A"), 30);
+    request.addOptionalAttendee("Person B");
+    query.query(EVENTS, request);
+    query.query(EVENTS, new MeetingRequest(Arrays.asList("Person C"), 30));
+
+    QueryStats.Snapshot snapshot = stats.snapshot();
+    Assert.assertEquals(2, snapshot.getQueries());
+    Assert.assertEquals(6, snapshot.getEventsScanned());
+    Assert.assertEquals(3, snapshot.getEventsMatched());
+    Assert.assertEquals(2, snapshot.getFreeRanges());
+    Assert.assertEquals(1, snapshot.getOptionalFallbacks());
+    Assert.assertEquals(2, stats.getLatency().getCount());
+  }
+
+  @Test
+  public void indexQueriesOnlyScanTheRequestedSchedules() {
+    QueryStats stats = new QueryStats();
+    FindMeetingQuery query = new FindMeetingQuery(stats);
+
+    query.query(new AttendeeIndex(EVENTS), new MeetingRequest(Arrays.asList("Person A"), 30));
+
+    QueryStats.Snapshot snapshot = stats.snapshot();
+    Assert.assertEquals(1, snapshot.getEventsScanned());
+    Assert.assertEquals(1, snapshot.getEventsMatched());
+    Assert.assertEquals(0, snapshot.getOptionalFallbacks());
+  }
+
+  @Test
+  public void timeOutsideWorkingHoursIsNotMatched() {
+    QueryStats stats = new QueryStats();
+    FindMeetingQuery query = new FindMeetingQuery(stats);
+    Map<String, WorkingHours> workingHours = Collections.singletonMap(
+        "Person A", WorkingHours.of(TIME_0900AM, TimeRange.getTimeInMinutes(17, 0), 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList("Person A"), 30);
+
+    query.query(EVENTS, request, workingHours);
+    query.query(new AttendeeIndex(EVENTS), request, workingHours);
+
+    QueryStats.Snapshot snapshot = stats.snapshot();
+    Assert.assertEquals(2, snapshot.getEventsMatched());
+  }
+
+  @Test
+  public void resetStartsOver() {
+    QueryStats stats = new QueryStats();
+    new FindMeetingQuery(stats).query(EVENTS, new MeetingRequest(Arrays.asList("Person A"), 30));
+
+    stats.reset();
+
+    Assert.assertEquals(0, stats.snapshot().getQueries());
+    Assert.assertEquals(0, stats.getLatency().getCount());
+  }
+}
@@ -0,0 +1,170 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RankedMeetingQueryTest {
+  private static final Collection<String> NO_ATTENDEES = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0800AM = TimeRange.getTimeInMinutes(8, 0);
+  private static final int TIME_0830AM = TimeRange.getTimeInMinutes(8, 30);
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
+  private static final int TIME_1200PM = TimeRange.getTimeInMinutes(12, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+  private static final int DURATION_60_MINUTES = 60;
+
+  private final RankedMeetingQuery query = new RankedMeetingQuery();
+
+  @Test
+  public void rankedPrefersOptionsMoreOptionalAttendeesCanMake() {
+    // Same schedule as optionalAttendeeMidDay. The two options C can make come first, and the
+    // option C cannot make is still offered instead of being dropped.
+    //
+    // Events  :       |--A--|--C--|--B--|
+    // Day     : |-----------------------------|
+    // Options : |--1--|     |--3--|     |--2--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartDuration(TIME_0800AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartDuration(TIME_0900AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartDuration(TIME_0830AM, DURATION_30_MINUTES),
+            Arrays.asList(PERSON_C)));
+
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<MeetingOption> actual = query.query(events, request);
+    List<MeetingOption> expected = Arrays.asList(
+        new MeetingOption(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0800AM, false), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0830AM, TIME_0900AM, false), 0));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void rankedCountsPeopleFreeForTheWholeMeeting() {
+    // Two optional attendees with overlapping events, and B double booked. A 30 minute meeting
+    // starting up to 9:00 misses nobody, one starting a minute later overlaps A's event, and one
+    // starting after 9:30 overlaps B's events too. Once A is done at 10:00, only B is missing.
+    //
+    // Events  :       |--A--|
+    //                    |---B---|
+    //                    |-B-|
+    // Day     : |---------------------------|
+    // Options : |--2--|          |-----2----|
+    //                 |-1-|   |--1--|
+    //                    |--0--|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM + 30, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM + 30, false),
+            Arrays.asList(PERSON_B)),
+        new Event("Event 3", TimeRange.fromStartEnd(TIME_1000AM, TIME_1000AM + 30, false),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<MeetingOption> actual = query.query(events, request);
+    List<MeetingOption> expected = Arrays.asList(
+        new MeetingOption(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0930AM, false), 2),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_1100AM + 30, TimeRange.END_OF_DAY, true), 2),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0900AM + 1, TIME_1000AM, false), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_1000AM + 30, TIME_1100AM + 59, false), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0930AM + 1, TIME_1000AM + 59, false), 0));
+
+    Assert.assertEquals(expected, actual);
+    Assert.assertEquals(
+        actual, query.query(new AttendeeIndex(events), request, TimeRange.WHOLE_DAY));
+  }
+
+  @Test
+  public void rankedNeedsOnePersonFreeThroughout() {
+    // Each optional person is free for part of the 2 hour window between their events, but
+    // nobody is free for a whole 1 hour meeting that straddles 9:00 to 9:30.
+    //
+    // Events  : |---A---|     |-----B-----|
+    // Day     : |-------------------------|
+    // Options : |---1----|
+    //                  |-0-|
+    //                   |---------1-------|
+
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0930AM, TimeRange.END_OF_DAY, true),
+            Arrays.asList(PERSON_B)));
+
+    MeetingRequest request = new MeetingRequest(NO_ATTENDEES, DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_A);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<MeetingOption> actual = query.query(events, request);
+    List<MeetingOption> expected = Arrays.asList(
+        new MeetingOption(TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0930AM, false), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0900AM, TimeRange.END_OF_DAY, true), 1),
+        new MeetingOption(TimeRange.fromStartEnd(TIME_0830AM + 1, TIME_1000AM - 1, false), 0));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void rankedCountsOptionalAttendeesOnlyWithinWorkingHours() {
+    // Optional B works from 12:00 to 17:00, so B can only make the afternoon.
+    Collection<Event> events = Collections.emptySet();
+    Map<String, WorkingHours> workingHours =
+        Collections.singletonMap(PERSON_B, WorkingHours.of(TIME_1200PM, TIME_0500PM, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_60_MINUTES);
+    request.addOptionalAttendee(PERSON_B);
+
+    List<MeetingOption> expected = Arrays.asList(
+        new MeetingOption(TimeRange.fromStartEnd(TIME_1200PM, TIME_0500PM, false), 1),
+        new MeetingOption(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_1200PM + 59, false), 0),
+        new MeetingOption(
+            TimeRange.fromStartEnd(TIME_0500PM - 59, TimeRange.END_OF_DAY, true), 0));
+
+    Assert.assertEquals(expected, query.query(events, request, workingHours, TimeRange.WHOLE_DAY));
+    Assert.assertEquals(expected,
+        query.query(new AttendeeIndex(events), request, workingHours, TimeRange.WHOLE_DAY));
+  }
+}
@@ -0,0 +1,174 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurrenceTest {
+  // 2024-01-01 was a Monday.
+  private static final int MONDAY = (int) LocalDate.of(2024, 1, 1).toEpochDay();
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+
+  private static final Event STAND_UP = new Event("Stand-up",
+      TimeRange.fromStartDuration(MONDAY * TimeRange.MINUTES_PER_DAY + TIME_0900AM, 15),
+      Arrays.asList("Person A"));
+
+  @Test
+  public void weeklyOnSomeWeekdays() {
+    RecurringEvent event = new RecurringEvent(
+        STAND_UP, Recurrence.weekly(1, DayOfWeek.MONDAY, DayOfWeek.WEDNESDAY));
+
+    List<Event> occurrences = event.getOccurrences(TimeRange.fromDays(MONDAY + 7, 7));
+
+    Assert.assertEquals(
+        Arrays.asList(occurrence(MONDAY + 7), occurrence(MONDAY + 9)), whens(occurrences));
+    Assert.assertEquals(STAND_UP.getAttendees(), occurrences.get(0).getAttendees());
+  }
+
+  @Test
+  public void countAndExceptions() {
+    // Skipped occurrences still count, so the series ends on the fourth day.
+    RecurringEvent event = new RecurringEvent(
+        STAND_UP, Recurrence.daily(1).withCount(4).withException(MONDAY + 1));
+
+    List<Event> occurrences = event.getOccurrences(TimeRange.fromDays(MONDAY, 30));
+
+    Assert.assertEquals(
+        Arrays.asList(occurrence(MONDAY), occurrence(MONDAY + 2), occurrence(MONDAY + 3)),
+        whens(occurrences));
+  }
+
+  @Test
+  public void farAwayWindowOnlyExpandsItsOwnDays() {
+    RecurringEvent event = new RecurringEvent(STAND_UP, Recurrence.daily(1));
+
+    List<Event> occurrences = event.getOccurrences(TimeRange.fromDays(MONDAY + 100_000, 1));
+
+    Assert.assertEquals(Arrays.asList(occurrence(MONDAY + 100_000)), whens(occurrences));
+  }
+
+  @Test
+  public void emptyWindowAtAnOccurrenceStart() {
+    // TimeRange.overlaps counts an occurrence that contains an empty window's start.
+    RecurringEvent event = new RecurringEvent(STAND_UP, Recurrence.daily(1));
+    TimeRange window = TimeRange.fromStartDuration(occurrence(MONDAY + 2).start(), 0);
+
+    List<Event> occurrences = event.getOccurrences(window);
+
+    Assert.assertTrue(occurrence(MONDAY + 2).overlaps(window));
+    Assert.assertEquals(Arrays.asList(occurrence(MONDAY + 2)), whens(occurrences));
+  }
+
+  @Test
+  public void matchesEagerExpansion() {
+    Random random = new Random(5);
+    for (int i = 0; i < 500; i++) {
+      int firstDay = MONDAY + random.nextInt(14);
+      int duration = random.nextInt(5) == 0 ? 0 : 1 + random.nextInt(2 * TimeRange.MINUTES_PER_DAY);
+      TimeRange first = TimeRange.fromStartDuration(
+          firstDay * TimeRange.MINUTES_PER_DAY + random.nextInt(TimeRange.MINUTES_PER_DAY),
+          duration);
+
+      boolean daily = random.nextBoolean();
+      int interval = 1 + random.nextInt(3);
+      Set<DayOfWeek> weekdays = EnumSet.noneOf(DayOfWeek.class);
+      for (DayOfWeek day : DayOfWeek.values()) {
+        if (random.nextInt(3) == 0) {
+          weekdays.add(day);
+        }
+      }
+      Recurrence recurrence = daily
+          ? Recurrence.daily(interval)
+          : Recurrence.weekly(interval, weekdays.toArray(new DayOfWeek[0]));
+      if (weekdays.isEmpty()) {
+        weekdays.add(LocalDate.ofEpochDay(firstDay).getDayOfWeek());
+      }
+
+      int count = Integer.MAX_VALUE;
+      if (random.nextBoolean()) {
+        count = random.nextInt(20);
+        recurrence = recurrence.withCount(count);
+      }
+      int lastDay = Integer.MAX_VALUE;
+      if (random.nextBoolean()) {
+        lastDay = firstDay + random.nextInt(60);
+        recurrence = recurrence.withLastDay(lastDay);
+      }
+      Set<Integer> exceptions = new HashSet<>();
+      for (int j = random.nextInt(4); j > 0; j--) {
+        exceptions.add(firstDay + random.nextInt(60));
+      }
+      for (int day : exceptions) {
+        recurrence = recurrence.withException(day);
+      }
+
+      TimeRange window = TimeRange.fromStartDuration(
+          (firstDay - 3) * TimeRange.MINUTES_PER_DAY
+              + random.nextInt(90 * TimeRange.MINUTES_PER_DAY),
+          random.nextInt(5) == 0 ? 0 : random.nextInt(10 * TimeRange.MINUTES_PER_DAY));
+
+      List<TimeRange> expected = new ArrayList<>();
+      LocalDate firstMonday = LocalDate.ofEpochDay(firstDay).with(DayOfWeek.MONDAY);
+      int seen = 0;
+      for (int day = firstDay; day <= Math.min(lastDay, firstDay + 200) && seen < count; day++) {
+        LocalDate date = LocalDate.ofEpochDay(day);
+        boolean matches = daily
+            ? (day - firstDay) % interval == 0
+            : ChronoUnit.WEEKS.between(firstMonday, date) % interval == 0
+                && weekdays.contains(date.getDayOfWeek());
+        if (!matches) {
+          continue;
+        }
+        seen++;
+        TimeRange occurrence = TimeRange.fromStartDuration(
+            first.start() + (day - firstDay) * TimeRange.MINUTES_PER_DAY, duration);
+        if (!exceptions.contains(day) && occurrence.overlaps(window)) {
+          expected.add(occurrence);
+        }
+      }
+
+      Intervals actual = new Intervals();
+      recurrence.addOccurrences(first, window, actual);
+      Assert.assertEquals(first + " in " + window, expected, actual.toTimeRanges(0, actual.size()));
+    }
+  }
+
+  private static TimeRange occurrence(int day) {
+    return TimeRange.fromStartDuration(day * TimeRange.MINUTES_PER_DAY + TIME_0900AM, 15);
+  }
+
+  private static List<TimeRange> whens(List<Event> events) {
+    List<TimeRange> whens = new ArrayList<>();
+    for (Event event : events) {
+      whens.add(event.getWhen());
+    }
+    return whens;
+  }
+}
@@ -0,0 +1,100 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RecurringMeetingQueryTest {
+  private static final Collection<Event> NO_EVENTS = Collections.emptySet();
+
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_1100AM = TimeRange.getTimeInMinutes(11, 00);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final FindMeetingQuery findMeetingQuery = new FindMeetingQuery();
+  private final RecurringMeetingQuery query = new RecurringMeetingQuery();
+
+  @Test
+  public void recurringEventsMatchEagerExpansion() {
+    // A daily stand-up for A from 9:00 to 9:30 that started long before the horizon, and a
+    // Thursday meeting for optional C. Day 399 is a Thursday.
+    TimeRange horizon = TimeRange.fromDays(399, 3);
+    RecurringEvent standUp = new RecurringEvent(
+        new Event("Stand-up", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        Recurrence.daily(1));
+    RecurringEvent weekly = new RecurringEvent(
+        new Event("Weekly", TimeRange.fromStartEnd(TIME_1000AM, TIME_1100AM, false),
+            Arrays.asList(PERSON_C)),
+        Recurrence.weekly(1));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<Event> expanded = new ArrayList<>();
+    expanded.addAll(standUp.getOccurrences(horizon));
+    expanded.addAll(weekly.getOccurrences(horizon));
+    Collection<TimeRange> expected = findMeetingQuery.query(expanded, request, horizon);
+    Collection<TimeRange> actual =
+        query.query(NO_EVENTS, Arrays.asList(standUp, weekly), request, horizon);
+
+    Assert.assertEquals(4, expanded.size());
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void recurringEventsWithinWorkingHours() {
+    // A works 9:00 to 17:00 and has a daily stand-up from 9:00 to 9:30.
+    TimeRange horizon = TimeRange.fromDays(399, 2);
+    RecurringEvent standUp = new RecurringEvent(
+        new Event("Stand-up", TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false),
+            Arrays.asList(PERSON_A)),
+        Recurrence.daily(1));
+    Map<String, WorkingHours> workingHours =
+        Collections.singletonMap(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    MeetingRequest request = new MeetingRequest(Arrays.asList(PERSON_A), DURATION_30_MINUTES);
+
+    List<TimeRange> actual =
+        query.query(NO_EVENTS, Arrays.asList(standUp), request, workingHours, horizon);
+    List<TimeRange> expected = new ArrayList<>();
+    for (int day = 399; day < 401; day++) {
+      int midnight = day * TimeRange.MINUTES_PER_DAY;
+      expected.add(
+          TimeRange.fromStartEnd(midnight + TIME_0930AM, midnight + TIME_0500PM, false));
+    }
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -0,0 +1,120 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomIndexTest {
+  private static final Room SMALL_ROOM = new Room("Small Room", 2);
+  private static final Room BIG_ROOM = new Room("Big Room", 10);
+
+  private static final TimeRange RANGE_0800_0900 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 0), TimeRange.getTimeInMinutes(9, 0), false);
+  private static final TimeRange RANGE_0830_1000 = TimeRange.fromStartEnd(
+      TimeRange.getTimeInMinutes(8, 30), TimeRange.getTimeInMinutes(10, 0), false);
+
+  @Test
+  public void bookingsMakeRoomsBusy() {
+    Event booking = new Event("Event 1", RANGE_0800_0900, Arrays.asList("Person A", "Big Room"));
+    RoomIndex index = new RoomIndex(Arrays.asList(BIG_ROOM, SMALL_ROOM), Arrays.asList(booking));
+
+    Assert.assertEquals(2, index.size());
+    Assert.assertFalse(index.isFree(BIG_ROOM, RANGE_0830_1000));
+    Assert.assertTrue(index.isFree(SMALL_ROOM, RANGE_0830_1000));
+    Assert.assertTrue(
+        index.isFree(BIG_ROOM, TimeRange.fromStartDuration(RANGE_0800_0900.end(), 60)));
+    Assert.assertFalse(index.isFree(new Room("Unknown Room", 2), RANGE_0830_1000));
+  }
+
+  @Test
+  public void optionsSkipSmallRoomsAndBookings() {
+    RoomIndex index = new RoomIndex(Arrays.asList(SMALL_ROOM, BIG_ROOM), Arrays.asList(
+        new Event("Event 1", RANGE_0800_0900, Arrays.asList("Big Room")),
+        new Event("Event 2", RANGE_0830_1000, Arrays.asList("Big Room"))));
+
+    List<RoomOption> options = new ArrayList<>();
+    index.addOptions(TimeRange.WHOLE_DAY, 30, 3, options);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            new RoomOption(TimeRange.fromStartEnd(0, RANGE_0800_0900.start(), false), BIG_ROOM),
+            new RoomOption(
+                TimeRange.fromStartEnd(RANGE_0830_1000.end(), TimeRange.MINUTES_PER_DAY, false),
+                BIG_ROOM)),
+        options);
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void duplicateRoomNames() {
+    new RoomIndex(Arrays.asList(SMALL_ROOM, new Room("Small Room", 4)),
+        Collections.<Event>emptyList());
+  }
+
+  @Test
+  public void optionsMatchAMinuteByMinuteScan() {
+    // Rooms of capacity 1 to 9, each booked for an hour every few hours, and a shared event.
+    List<Room> rooms = new ArrayList<>();
+    List<Event> events = new ArrayList<>();
+    for (int i = 0; i < 9; i++) {
+      Room room = new Room("Room " + i, 1 + (i * 4) % 9);
+      rooms.add(room);
+      for (int start = i * 20; start < TimeRange.END_OF_DAY; start += 120 + i * 30) {
+        events.add(new Event(
+            "Event", TimeRange.fromStartDuration(start, 60), Arrays.asList(room.getName())));
+      }
+    }
+    events.add(new Event("Event", RANGE_0830_1000, Arrays.asList("Room 3", "Room 7")));
+    RoomIndex index = new RoomIndex(rooms, events);
+
+    TimeRange free = TimeRange.fromStartEnd(
+        TimeRange.getTimeInMinutes(7, 10), TimeRange.getTimeInMinutes(15, 50), false);
+    for (int capacity = 0; capacity <= 10; capacity++) {
+      List<RoomOption> expected = new ArrayList<>();
+      for (Room room : rooms) {
+        if (room.getCapacity() < capacity) {
+          continue;
+        }
+        int runStart = free.start();
+        for (int minute = free.start(); minute <= free.end(); minute++) {
+          boolean busy = minute == free.end();
+          for (Event event : events) {
+            busy |= event.getAttendees().contains(room.getName())
+                && event.getWhen().contains(minute);
+          }
+          if (busy) {
+            if (minute - runStart >= 45) {
+              expected.add(new RoomOption(TimeRange.fromStartEnd(runStart, minute, false), room));
+            }
+            runStart = minute + 1;
+          }
+        }
+      }
+      List<RoomOption> actual = new ArrayList<>();
+      index.addOptions(free, 45, capacity, actual);
+      Collections.sort(expected, RoomOption.ORDER_BY_START);
+      Collections.sort(actual, RoomOption.ORDER_BY_START);
+      Assert.assertEquals(expected, actual);
+    }
+  }
+}
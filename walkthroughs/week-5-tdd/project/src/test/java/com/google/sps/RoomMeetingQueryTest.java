@@ -0,0 +1,102 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+
+package com.google.sps;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class RoomMeetingQueryTest {
+  private static final String PERSON_A = "Person A";
+  private static final String PERSON_B = "Person B";
+  private static final String PERSON_C = "Person C";
+
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0930AM = TimeRange.getTimeInMinutes(9, 30);
+  private static final int TIME_1000AM = TimeRange.getTimeInMinutes(10, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  private static final int DURATION_30_MINUTES = 30;
+
+  private final RoomMeetingQuery query = new RoomMeetingQuery();
+
+  @Test
+  public void roomsMustFitEveryoneAndBeFree() {
+    // Person A is busy until 9:00. The small room cannot seat A, B and optional C, and the big
+    // room is booked from 9:30 to 10:00.
+    Room smallRoom = new Room("Small Room", 2);
+    Room bigRoom = new Room("Big Room", 3);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.fromStartEnd(TimeRange.START_OF_DAY, TIME_0900AM, false),
+            Arrays.asList(PERSON_A)),
+        new Event("Event 2", TimeRange.fromStartEnd(TIME_0930AM, TIME_1000AM, false),
+            Arrays.asList(bigRoom.getName())));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(smallRoom, bigRoom), events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<RoomOption> actual = query.query(events, request, rooms);
+    List<RoomOption> expected = Arrays.asList(
+        new RoomOption(TimeRange.fromStartEnd(TIME_0900AM, TIME_0930AM, false), bigRoom),
+        new RoomOption(TimeRange.fromStartEnd(TIME_1000AM, TimeRange.END_OF_DAY, true), bigRoom));
+
+    Assert.assertEquals(expected, actual);
+  }
+
+  @Test
+  public void roomsOnlySeatOptionalAttendeesWhoCanCome() {
+    // Optional C is busy all day, so C is dropped and the small room seats A and B.
+    Room smallRoom = new Room("Small Room", 2);
+    Collection<Event> events = Arrays.asList(
+        new Event("Event 1", TimeRange.WHOLE_DAY, Arrays.asList(PERSON_C)));
+    RoomIndex rooms = new RoomIndex(Arrays.asList(smallRoom), events);
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+    request.addOptionalAttendee(PERSON_C);
+
+    List<RoomOption> actual = query.query(events, request, rooms);
+
+    Assert.assertEquals(Arrays.asList(new RoomOption(TimeRange.WHOLE_DAY, smallRoom)), actual);
+  }
+
+  @Test
+  public void roomsOnlyWithinWorkingHours() {
+    // A works 9:00 to 17:00 and the room is free all day.
+    Room room = new Room("Room", 2);
+    Collection<Event> events = Collections.emptySet();
+    RoomIndex rooms = new RoomIndex(Arrays.asList(room), events);
+    Map<String, WorkingHours> workingHours =
+        Collections.singletonMap(PERSON_A, WorkingHours.of(TIME_0900AM, TIME_0500PM, 0));
+    MeetingRequest request =
+        new MeetingRequest(Arrays.asList(PERSON_A, PERSON_B), DURATION_30_MINUTES);
+
+    List<RoomOption> actual =
+        query.query(events, request, rooms, workingHours, TimeRange.WHOLE_DAY);
+    List<RoomOption> expected = Arrays.asList(
+        new RoomOption(TimeRange.fromStartEnd(TIME_0900AM, TIME_0500PM, false), room));
+
+    Assert.assertEquals(expected, actual);
+  }
+}
@@ -184,4 +184,14 @@ public final class TimeRangeTest {
     Assert.assertTrue(emptyMiddle.overlaps(range));
     Assert.assertTrue(emptyEnd.overlaps(range));
   }
+
+  @Test
+  public void fromDays() {
+    Assert.assertEquals(TimeRange.WHOLE_DAY, TimeRange.fromDays(0, 1));
+
+    // Three weeks starting on day 10.
+    TimeRange range = TimeRange.fromDays(10, 21);
+    Assert.assertEquals(10 * TimeRange.MINUTES_PER_DAY, range.start());
+    Assert.assertEquals(31 * TimeRange.MINUTES_PER_DAY, range.end());
+  }
 }
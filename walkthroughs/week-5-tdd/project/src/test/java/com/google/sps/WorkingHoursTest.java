@@ -0,0 +1,126 @@
+// Copyright 2019 Google LLC
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     https://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package com.google.sps;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/** */
+@RunWith(JUnit4.class)
+public final class WorkingHoursTest {
+  private static final int TIME_0900AM = TimeRange.getTimeInMinutes(9, 0);
+  private static final int TIME_0500PM = TimeRange.getTimeInMinutes(17, 0);
+
+  @Test
+  public void timeZoneShiftsTheWorkingDay() {
+    // 9:00 to 17:00 at UTC-5 is 14:00 to 22:00 UTC.
+    WorkingHours hours = WorkingHours.of(TIME_0900AM, TIME_0500PM, -5 * 60);
+
+    Intervals out = new Intervals();
+    hours.addUnavailableIntervals(TimeRange.WHOLE_DAY, out);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(TimeRange.START_OF_DAY, 14 * 60, false),
+            TimeRange.fromStartEnd(22 * 60, TimeRange.END_OF_DAY, true)),
+        out.toTimeRanges(0, out.size()));
+  }
+
+  @Test
+  public void daysOffAreOneLongGap() {
+    // Day 1 was a Friday, so from Friday 17:00 to Monday 9:00 is one gap.
+    WorkingHours hours = WorkingHours.of(TIME_0900AM, TIME_0500PM, 0).onDays(
+        DayOfWeek.MONDAY, DayOfWeek.TUESDAY, DayOfWeek.WEDNESDAY, DayOfWeek.THURSDAY,
+        DayOfWeek.FRIDAY);
+
+    Intervals out = new Intervals();
+    hours.addUnavailableIntervals(TimeRange.fromDays(1, 4), out);
+
+    Assert.assertEquals(
+        Arrays.asList(
+            TimeRange.fromStartEnd(
+                TimeRange.MINUTES_PER_DAY, TimeRange.MINUTES_PER_DAY + TIME_0900AM, false),
+            TimeRange.fromStartEnd(TimeRange.MINUTES_PER_DAY + TIME_0500PM,
+                4 * TimeRange.MINUTES_PER_DAY + TIME_0900AM, false),
+            TimeRange.fromStartEnd(4 * TimeRange.MINUTES_PER_DAY + TIME_0500PM,
+                5 * TimeRange.MINUTES_PER_DAY, false)),
+        out.toTimeRanges(0, out.size()));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsEndBeforeStart() {
+    WorkingHours.of(TIME_0500PM, TIME_0900AM, 0);
+  }
+
+  @Test
+  public void matchesMinuteByMinuteCheck() {
+    Random random = new Random(11);
+    for (int i = 0; i < 300; i++) {
+      int start = random.nextInt(TimeRange.MINUTES_PER_DAY);
+      int end = start + 1 + random.nextInt(TimeRange.MINUTES_PER_DAY - start);
+      int utcOffset = random.nextInt(2 * 14 * 60 + 1) - 14 * 60;
+      Set<DayOfWeek> days = EnumSet.noneOf(DayOfWeek.class);
+      for (DayOfWeek day : DayOfWeek.values()) {
+        if (random.nextInt(4) != 0) {
+          days.add(day);
+        }
+      }
+      WorkingHours hours =
+          WorkingHours.of(start, end, utcOffset).onDays(days.toArray(new DayOfWeek[0]));
+      TimeRange horizon = TimeRange.fromStartDuration(
+          random.nextInt(20 * TimeRange.MINUTES_PER_DAY) - 10 * TimeRange.MINUTES_PER_DAY,
+          random.nextInt(9 * TimeRange.MINUTES_PER_DAY));
+
+      List<TimeRange> expected = new ArrayList<>();
+      boolean inGap = false;
+      int gapStart = 0;
+      for (int minute = horizon.start(); minute <= horizon.end(); minute++) {
+        boolean unavailable = minute < horizon.end() && !works(days, start, end, utcOffset, minute);
+        if (unavailable && !inGap) {
+          gapStart = minute;
+        } else if (!unavailable && inGap) {
+          expected.add(TimeRange.fromStartEnd(gapStart, minute, false));
+        }
+        inGap = unavailable;
+      }
+
+      Intervals actual = new Intervals();
+      hours.addUnavailableIntervals(horizon, actual);
+      Assert.assertEquals(
+          start + "-" + end + " at " + utcOffset + " in " + horizon,
+          expected, actual.toTimeRanges(0, actual.size()));
+    }
+  }
+
+  /** Checks a single UTC minute against the working hours in local time. */
+  private static boolean works(Set<DayOfWeek> days, int start, int end, int utcOffset, int minute) {
+    int local = minute + utcOffset;
+    int day = Math.floorDiv(local, TimeRange.MINUTES_PER_DAY);
+    int timeOfDay = Math.floorMod(local, TimeRange.MINUTES_PER_DAY);
+    return days.contains(LocalDate.ofEpochDay(day).getDayOfWeek())
+        && start <= timeOfDay && timeOfDay < end;
+  }
+
+}